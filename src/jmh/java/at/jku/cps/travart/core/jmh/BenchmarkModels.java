@@ -0,0 +1,69 @@
+package at.jku.cps.travart.core.jmh;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.generator.FeatureModelGenerator;
+import at.jku.cps.travart.core.io.UVLDeserializer;
+import at.jku.cps.travart.core.io.UVLSerializer;
+import de.vill.model.FeatureModel;
+
+/**
+ * Builds the feature models the benchmarks run over with the
+ * {@link FeatureModelGenerator}, using the defaults of the generate command.
+ * The seed is fixed, such that every run and every fork measures the same
+ * models, and the depth grows with the number of features such that inner
+ * features have about four children.
+ */
+public final class BenchmarkModels {
+
+	private static final long SEED = 42;
+	private static final double OR_SHARE = 0.2;
+	private static final double ALTERNATIVE_SHARE = 0.2;
+	private static final double CARDINALITY_SHARE = 0.1;
+	private static final double CONSTRAINT_DENSITY = 0.1;
+
+	private BenchmarkModels() {
+	}
+
+	/**
+	 * Generates a model as UVL.
+	 *
+	 * @param features the number of features, including the root
+	 * @return the model in UVL format
+	 */
+	public static String uvl(final int features) {
+		try {
+			return new UVLSerializer().serialize(model(features));
+		} catch (NotSupportedVariabilityTypeException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Generates a model.
+	 *
+	 * @param features the number of features, including the root
+	 * @return the model
+	 */
+	public static FeatureModel model(final int features) {
+		int depth = 1 + (int) Math.ceil(Math.log(features) / Math.log(4));
+		return new FeatureModelGenerator(features, depth, OR_SHARE,
+				ALTERNATIVE_SHARE, CARDINALITY_SHARE, CONSTRAINT_DENSITY)
+				.generate(SEED);
+	}
+
+	/**
+	 * Parses a model generated before, e.g., to get a fresh copy for
+	 * benchmarks modifying their model.
+	 *
+	 * @param uvl the model in UVL format
+	 * @return the model
+	 */
+	public static FeatureModel parse(final String uvl) {
+		try {
+			return new UVLDeserializer().deserialize(uvl,
+					UVLSerializer.UVL_FORMAT);
+		} catch (NotSupportedVariabilityTypeException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package at.jku.cps.travart.core.jmh;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.eventbus.EventBus;
+
+import at.jku.cps.travart.core.benchmarking.BenchmarkEventBus;
+import at.jku.cps.travart.core.benchmarking.ModelSizeBenchmark;
+import at.jku.cps.travart.core.benchmarking.NewFeatureEvent;
+import at.jku.cps.travart.core.benchmarking.OneToNTransformationEvent;
+import at.jku.cps.travart.core.benchmarking.PhaseTimeBenchmark;
+import at.jku.cps.travart.core.benchmarking.TransformationTimeBenchmark;
+
+/**
+ * Dispatch of benchmarking events by the Guava {@link EventBus} and the
+ * {@link BenchmarkEventBus}, with the benchmarks of a typical session
+ * activated. Events are posted as transformers do on their hot paths, i.e.,
+ * an event nobody listens to is only created if the bus may be listening.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EventDispatchBenchmark {
+
+	@Param({"guava", "typed"})
+	private String bus;
+
+	private EventBus eventBus;
+	private NewFeatureEvent event;
+
+	@Setup
+	public void setUp() {
+		eventBus = "typed".equals(bus) ? new BenchmarkEventBus()
+				: new EventBus();
+		new ModelSizeBenchmark().activateBenchmark(eventBus);
+		new TransformationTimeBenchmark().activateBenchmark(eventBus);
+		new PhaseTimeBenchmark().activateBenchmark(eventBus);
+		event = new NewFeatureEvent(Instant.now(), "F1", 0);
+	}
+
+	@Benchmark
+	public void postPreallocated() {
+		eventBus.post(event);
+	}
+
+	@Benchmark
+	public void postNewFeature() {
+		eventBus.post(new NewFeatureEvent(Instant.now(), "F1", 0));
+	}
+
+	@Benchmark
+	public void postUnobserved() {
+		if (BenchmarkEventBus.isListening(eventBus,
+				OneToNTransformationEvent.class)) {
+			eventBus.post(
+					new OneToNTransformationEvent(Instant.now(), "F1", 0));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package at.jku.cps.travart.core.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.jku.cps.travart.core.common.IModelOptimizer.STRATEGY;
+import at.jku.cps.travart.core.optimize.DefaultCoreModelOptimizer;
+import de.vill.model.FeatureModel;
+
+/**
+ * Optimization of a feature model, which modifies the model. Every invocation
+ * therefore optimizes a fresh copy, parsed outside of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ModelOptimizerBenchmark {
+
+	@Param({"100", "1000"})
+	private int features;
+
+	private String uvl;
+	private FeatureModel model;
+
+	@Setup
+	public void setUp() {
+		uvl = BenchmarkModels.uvl(features);
+	}
+
+	@Setup(Level.Invocation)
+	public void copyModel() {
+		model = BenchmarkModels.parse(uvl);
+	}
+
+	@Benchmark
+	public FeatureModel optimize() {
+		DefaultCoreModelOptimizer.getInstance().optimize(model,
+				STRATEGY.FULL);
+		return model;
+	}
+}
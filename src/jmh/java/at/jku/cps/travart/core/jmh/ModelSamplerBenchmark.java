@@ -0,0 +1,52 @@
+package at.jku.cps.travart.core.jmh;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.jku.cps.travart.core.common.IConfigurable;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.sampler.DefaultCoreModelSampler;
+import de.vill.model.FeatureModel;
+
+/**
+ * Sampling of valid configurations (3-wise), including the conversion of the
+ * model to FeatureIDE. A sampler caches the samples of the last model, so
+ * every invocation uses a new sampler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ModelSamplerBenchmark {
+
+	@Param({"10", "25", "50"})
+	private int features;
+
+	private FeatureModel model;
+
+	@Setup
+	public void setUp() {
+		model = BenchmarkModels.model(features);
+	}
+
+	@Benchmark
+	public Set<Map<IConfigurable, Boolean>> sampleValidConfigurations()
+			throws NotSupportedVariabilityTypeException {
+		return new DefaultCoreModelSampler().sampleValidConfigurations(model);
+	}
+}
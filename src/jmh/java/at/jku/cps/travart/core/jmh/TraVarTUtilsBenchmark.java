@@ -0,0 +1,90 @@
+package at.jku.cps.travart.core.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.logicng.formulas.Formula;
+import org.logicng.formulas.FormulaFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.jku.cps.travart.core.generator.FeatureModelGenerator;
+import at.jku.cps.travart.core.helpers.TraVarTUtils;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * Feature lookups and the translation of constraints from and to LogicNG
+ * formulas, which transformers call for every feature and constraint.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TraVarTUtilsBenchmark {
+
+	@Param({"100", "1000", "10000"})
+	private int features;
+
+	private FeatureModel model;
+	private List<Constraint> constraints;
+	private List<Formula> formulas;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		model = BenchmarkModels.model(features);
+		constraints = TraVarTUtils.getOwnConstraints(model);
+		FormulaFactory factory = new FormulaFactory();
+		formulas = new ArrayList<>(constraints.size());
+		for (Constraint constraint : constraints) {
+			formulas.add(
+					TraVarTUtils.buildFormulaFromConstraint(constraint, factory));
+		}
+	}
+
+	@Benchmark
+	public Feature getFeature() {
+		// Spread the lookups over the whole tree
+		next = (next + 7919) % features;
+		return TraVarTUtils.getFeature(model,
+				FeatureModelGenerator.name(next));
+	}
+
+	@Benchmark
+	public Map<String, Feature> getFeatureMapFromRoot() {
+		return TraVarTUtils.getFeatureMapFromRoot(TraVarTUtils.getRoot(model));
+	}
+
+	@Benchmark
+	public void buildFormulaFromConstraint(final Blackhole blackhole) {
+		// Formulas are cached by their factory, do not measure cache hits
+		FormulaFactory factory = new FormulaFactory();
+		for (Constraint constraint : constraints) {
+			blackhole.consume(
+					TraVarTUtils.buildFormulaFromConstraint(constraint, factory));
+		}
+	}
+
+	@Benchmark
+	public void buildConstraintFromFormula(final Blackhole blackhole) {
+		for (Formula formula : formulas) {
+			blackhole.consume(TraVarTUtils.buildConstraintFromFormula(formula));
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package at.jku.cps.travart.core.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.event.Level;
+
+import at.jku.cps.travart.core.FeatureModelStatistics;
+import at.jku.cps.travart.core.benchmarking.BenchmarkEventBus;
+import at.jku.cps.travart.core.benchmarking.ModelSizeBenchmark;
+import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
+import at.jku.cps.travart.core.common.IStatistics;
+import at.jku.cps.travart.core.transformation.AbstractBenchmarkingTransformer;
+import de.vill.model.FeatureModel;
+
+/**
+ * Overhead of {@link AbstractBenchmarkingTransformer#transform} over the
+ * plugin's transformInner, for a transformer which does not do anything else
+ * than wrapping the model. Without a bus, or with a verbosity the events do
+ * not match, the overhead should vanish; with a benchmark listening, the
+ * model is counted before and after the transformation. The log level of the
+ * benchmarks jar is ERROR, so model statistics are never logged.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransformerOverheadBenchmark {
+
+	/** The transformed model of the wrapping transformer. */
+	public record Wrapper(FeatureModel model) {
+	}
+
+	/** Wraps models, i.e., a transformation without costs of its own. */
+	public static class WrappingTransformer
+			extends
+				AbstractBenchmarkingTransformer<Wrapper> {
+
+		private static final FeatureModelStatistics STATISTICS = new FeatureModelStatistics();
+
+		@Override
+		public Wrapper transformInner(FeatureModel model, String modelName,
+				STRATEGY strategy) {
+			return new Wrapper(model);
+		}
+
+		@Override
+		public FeatureModel transformInner(Wrapper model, String modelName,
+				STRATEGY strategy) {
+			return model.model();
+		}
+
+		@Override
+		public IStatistics<Wrapper> getTargetStatistics() {
+			return new IStatistics<>() {
+				@Override
+				public int getVariabilityElementsCount(Wrapper model) {
+					return STATISTICS.getVariabilityElementsCount(model.model());
+				}
+
+				@Override
+				public int getConstraintsCount(Wrapper model) {
+					return STATISTICS.getConstraintsCount(model.model());
+				}
+
+				@Override
+				public void logModelStatistics(Logger logger, Wrapper model) {
+					STATISTICS.logModelStatistics(logger, model.model());
+				}
+			};
+		}
+	}
+
+	@Param({"1000", "10000"})
+	private int features;
+
+	private FeatureModel model;
+	private WrappingTransformer unbenchmarked;
+	private WrappingTransformer nonMatching;
+	private WrappingTransformer benchmarked;
+
+	@Setup
+	public void setUp() {
+		model = BenchmarkModels.model(features);
+		unbenchmarked = new WrappingTransformer();
+		nonMatching = new WrappingTransformer();
+		nonMatching.setBus(benchmarkedBus());
+		nonMatching.setVerbosity(Level.ERROR);
+		benchmarked = new WrappingTransformer();
+		benchmarked.setBus(benchmarkedBus());
+		benchmarked.setVerbosity(Level.TRACE);
+	}
+
+	private static BenchmarkEventBus benchmarkedBus() {
+		BenchmarkEventBus bus = new BenchmarkEventBus();
+		// Does not unregister unless the transformation is final
+		new ModelSizeBenchmark().activateBenchmark(bus);
+		return bus;
+	}
+
+	@Benchmark
+	public Wrapper transformInner() {
+		return unbenchmarked.transformInner(model, "model", STRATEGY.ONE_WAY);
+	}
+
+	@Benchmark
+	public Wrapper transformWithoutBus() throws Exception {
+		return unbenchmarked.transform(model, "model", STRATEGY.ONE_WAY, true);
+	}
+
+	@Benchmark
+	public Wrapper transformWithNonMatchingVerbosity() throws Exception {
+		return nonMatching.transform(model, "model", STRATEGY.ONE_WAY, true);
+	}
+
+	@Benchmark
+	public Wrapper transformBenchmarked() throws Exception {
+		return benchmarked.transform(model, "model", STRATEGY.ONE_WAY, true);
+	}
+}
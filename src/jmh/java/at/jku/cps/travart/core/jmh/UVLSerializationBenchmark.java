@@ -0,0 +1,58 @@
+package at.jku.cps.travart.core.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.io.UVLDeserializer;
+import at.jku.cps.travart.core.io.UVLSerializer;
+import de.vill.model.FeatureModel;
+
+/**
+ * Reading and writing UVL, the first and last stage of every transformation
+ * from or to UVL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UVLSerializationBenchmark {
+
+	@Param({"100", "1000", "10000"})
+	private int features;
+
+	private final UVLDeserializer deserializer = new UVLDeserializer();
+	private final UVLSerializer serializer = new UVLSerializer();
+	private String uvl;
+	private FeatureModel model;
+
+	@Setup
+	public void setUp() {
+		uvl = BenchmarkModels.uvl(features);
+		model = BenchmarkModels.parse(uvl);
+	}
+
+	@Benchmark
+	public FeatureModel deserialize()
+			throws NotSupportedVariabilityTypeException {
+		return deserializer.deserialize(uvl, UVLSerializer.UVL_FORMAT);
+	}
+
+	@Benchmark
+	public String serialize() throws NotSupportedVariabilityTypeException {
+		return serializer.serialize(model);
+	}
+}
@@ -0,0 +1,49 @@
+package at.jku.cps.travart.core.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.jku.cps.travart.core.verify.UVLVerifier;
+import de.vill.model.FeatureModel;
+
+/**
+ * Equivalence check of two feature models with the same configuration space,
+ * as done to verify roundtrip transformations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UVLVerifierBenchmark {
+
+	@Param({"100", "1000"})
+	private int features;
+
+	private FeatureModel model;
+	private FeatureModel copy;
+
+	@Setup
+	public void setUp() {
+		String uvl = BenchmarkModels.uvl(features);
+		model = BenchmarkModels.parse(uvl);
+		copy = BenchmarkModels.parse(uvl);
+	}
+
+	@Benchmark
+	public boolean equals() {
+		return UVLVerifier.equals(model, copy);
+	}
+}
@@ -41,6 +41,10 @@ public final class FeatureModelStatistics implements IStatistics<FeatureModel> {
 
 	@Override
 	public void logModelStatistics(final Logger logger, final FeatureModel fm) {
+		if (!logger.isInfoEnabled()) {
+			// Each statistic traverses the whole model
+			return;
+		}
 		logger.log(Level.INFO, "Root Name: {}",
 				fm.getRootFeature().getFeatureName());
 		logger.log(Level.INFO, "#Features: {}",
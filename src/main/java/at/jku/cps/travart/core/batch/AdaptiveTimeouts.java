@@ -0,0 +1,283 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.benchmarking.BenchmarkResultsWriter;
+
+/**
+ * Derives the deadline of a stage from the size of the model instead of using
+ * one fixed timeout for all models. For every stage (e.g., the deserializer or
+ * a single transformation step of a plugin), a linear cost model
+ * {@code time = c0 + c1 * x1 + ... + cn * xn} is fitted by least squares to the
+ * durations observed so far, where {@code x1..xn} describe the size of the
+ * model, e.g., file size, number of features and constraints.
+ *
+ * The deadline of a stage is its predicted duration (at least the mean
+ * duration of the stage) multiplied by a safety factor, bounded by a minimum
+ * and maximum. As long as a stage has fewer samples than required, the
+ * fallback timeout is used. Only stages that finished are recorded, so models
+ * killed at their deadline never shorten the deadlines of later models.
+ * Durations of earlier sessions can be added from their results files, see
+ * {@link #addHistory(Path, String, String, TimeUnit, Function)}. Instances are
+ * thread-safe.
+ */
+public class AdaptiveTimeouts {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(AdaptiveTimeouts.class);
+
+	// Keeps the normal equations solvable for constant features
+	private static final double RIDGE = 1e-9;
+
+	private final double safetyFactor;
+	private final int minSamples;
+	private final long fallbackMillis;
+	private final long minMillis;
+	private final long maxMillis;
+	private final Map<String, CostModel> models = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates adaptive timeouts without any observations.
+	 *
+	 * @param safetyFactor   factor applied to the predicted duration
+	 * @param minSamples     number of observations of a stage before its cost
+	 *                       model is used
+	 * @param fallbackMillis timeout used until a stage has enough observations
+	 * @param minMillis      lower bound of adaptive timeouts
+	 * @param maxMillis      upper bound of adaptive timeouts
+	 */
+	public AdaptiveTimeouts(final double safetyFactor, final int minSamples,
+			final long fallbackMillis, final long minMillis,
+			final long maxMillis) {
+		if (safetyFactor < 1) {
+			throw new IllegalArgumentException(
+					"Safety factor must be at least 1!");
+		}
+		if (minMillis > maxMillis) {
+			throw new IllegalArgumentException(
+					"Minimum timeout must not exceed the maximum timeout!");
+		}
+		this.safetyFactor = safetyFactor;
+		this.minSamples = Math.max(1, minSamples);
+		this.fallbackMillis = fallbackMillis;
+		this.minMillis = minMillis;
+		this.maxMillis = maxMillis;
+	}
+
+	/**
+	 * Returns the deadline of the given stage for a model of the given size.
+	 *
+	 * @param stage    name of the stage, including the plugin it belongs to
+	 * @param features features describing the size of the model, the same
+	 *                 number of features must be given for every call of a
+	 *                 stage
+	 * @return the timeout in milliseconds
+	 */
+	public long getTimeoutMillis(final String stage, final double... features) {
+		CostModel model = models.get(stage);
+		if (model == null) {
+			return fallbackMillis;
+		}
+		double predicted = model.predict(features, minSamples);
+		if (Double.isNaN(predicted)) {
+			return fallbackMillis;
+		}
+		long timeout = (long) Math.ceil(safetyFactor
+				* TimeUnit.NANOSECONDS.toMillis((long) Math.max(0, predicted)));
+		return Math.min(maxMillis, Math.max(minMillis, timeout));
+	}
+
+	/**
+	 * Records the duration of a stage which finished in time.
+	 *
+	 * @param stage        name of the stage, including the plugin it belongs to
+	 * @param elapsedNanos the duration of the stage
+	 * @param features     features describing the size of the model
+	 */
+	public void record(final String stage, final long elapsedNanos,
+			final double... features) {
+		models.computeIfAbsent(stage, s -> new CostModel(features.length))
+				.add(features, elapsedNanos);
+	}
+
+	/**
+	 * Records the durations of a stage from a results file written by
+	 * {@link BenchmarkResultsWriter}, e.g., of an earlier session. Entries
+	 * without a duration, e.g., failed models, are skipped. Missing or
+	 * unreadable files are ignored.
+	 *
+	 * @param resultsFile the results file
+	 * @param stage       name of the stage, including the plugin it belongs to
+	 * @param column      the column holding the durations of the stage
+	 * @param unit        the unit of the durations
+	 * @param features    features describing the size of the model of an
+	 *                    entry, given its file name, or null if unknown
+	 * @return the number of recorded durations
+	 */
+	public int addHistory(final Path resultsFile, final String stage,
+			final String column, final TimeUnit unit,
+			final Function<String, double[]> features) {
+		if (Objects.isNull(resultsFile) || !Files.isRegularFile(resultsFile)) {
+			return 0;
+		}
+		int recorded = 0;
+		try (Reader reader = Files.newBufferedReader(resultsFile);
+				CSVParser parser = CSVFormat.DEFAULT.builder().setHeader()
+						.setSkipHeaderRecord(true).get().parse(reader)) {
+			for (CSVRecord record : parser) {
+				if (!record.isSet(BenchmarkResultsWriter.FILE_NAME_COLUMN)
+						|| !record.isSet(column)) {
+					continue;
+				}
+				long duration;
+				try {
+					duration = Long.parseLong(record.get(column));
+				} catch (NumberFormatException e) {
+					// Failed entries have no durations
+					continue;
+				}
+				double[] x = features.apply(
+						record.get(BenchmarkResultsWriter.FILE_NAME_COLUMN));
+				if (Objects.nonNull(x)) {
+					record(stage, unit.toNanos(duration), x);
+					recorded++;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn(String.format(
+					"Unable to read durations from %s, ignoring it: %s",
+					resultsFile, e.getMessage()));
+		}
+		return recorded;
+	}
+
+	/**
+	 * Describes the cost models fitted so far, one line per stage.
+	 *
+	 * @return the descriptions of the cost models
+	 */
+	public List<String> describe() {
+		List<String> descriptions = new ArrayList<>();
+		models.forEach((stage, model) -> descriptions
+				.add(stage + ": " + model.toString()));
+		descriptions.sort(null);
+		return descriptions;
+	}
+
+	private static final class CostModel {
+
+		// Normal equations X^T X c = X^T y, with an intercept column
+		private final double[][] xtx;
+		private final double[] xty;
+		private long samples;
+
+		private CostModel(final int features) {
+			xtx = new double[features + 1][features + 1];
+			xty = new double[features + 1];
+		}
+
+		private synchronized void add(final double[] features,
+				final double nanos) {
+			double[] x = withIntercept(features);
+			for (int i = 0; i < x.length; i++) {
+				for (int j = 0; j < x.length; j++) {
+					xtx[i][j] += x[i] * x[j];
+				}
+				xty[i] += x[i] * nanos;
+			}
+			samples++;
+		}
+
+		private synchronized double predict(final double[] features,
+				final int minSamples) {
+			if (samples < minSamples) {
+				return Double.NaN;
+			}
+			double[] coefficients = solve();
+			double[] x = withIntercept(features);
+			double predicted = 0;
+			for (int i = 0; i < x.length; i++) {
+				predicted += coefficients[i] * x[i];
+			}
+			// Few noisy samples may fit negative slopes, never predict less
+			// than the mean duration
+			return Math.max(predicted, xty[0] / samples);
+		}
+
+		private double[] withIntercept(final double[] features) {
+			if (features.length + 1 != xty.length) {
+				throw new IllegalArgumentException(
+						"Expected " + (xty.length - 1) + " features!");
+			}
+			double[] x = new double[features.length + 1];
+			x[0] = 1;
+			System.arraycopy(features, 0, x, 1, features.length);
+			return x;
+		}
+
+		// Gaussian elimination with partial pivoting on a copy
+		private double[] solve() {
+			int n = xty.length;
+			double[][] a = new double[n][n + 1];
+			for (int i = 0; i < n; i++) {
+				System.arraycopy(xtx[i], 0, a[i], 0, n);
+				a[i][i] += RIDGE * Math.max(1, xtx[i][i]);
+				a[i][n] = xty[i];
+			}
+			for (int col = 0; col < n; col++) {
+				int pivot = col;
+				for (int row = col + 1; row < n; row++) {
+					if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+						pivot = row;
+					}
+				}
+				double[] swap = a[col];
+				a[col] = a[pivot];
+				a[pivot] = swap;
+				for (int row = col + 1; row < n; row++) {
+					double factor = a[row][col] / a[col][col];
+					for (int k = col; k <= n; k++) {
+						a[row][k] -= factor * a[col][k];
+					}
+				}
+			}
+			double[] c = new double[n];
+			for (int row = n - 1; row >= 0; row--) {
+				double sum = a[row][n];
+				for (int k = row + 1; k < n; k++) {
+					sum -= a[row][k] * c[k];
+				}
+				c[row] = sum / a[row][row];
+			}
+			return c;
+		}
+
+		@Override
+		public synchronized String toString() {
+			double[] c = solve();
+			StringBuilder description = new StringBuilder(
+					String.format("%d sample(s), time [ns] = %.1f", samples,
+							c[0]));
+			for (int i = 1; i < c.length; i++) {
+				description.append(String.format(" + %.4f * x%d", c[i], i));
+			}
+			return description.toString();
+		}
+	}
+}
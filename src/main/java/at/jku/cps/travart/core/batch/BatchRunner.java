@@ -0,0 +1,279 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.batch.StagedPipeline.StageStatistics;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.exception.TransformationException;
+
+/**
+ * Drives a batch of files through a transformation, one file after another, on
+ * a pool of worker threads, or through a {@link StagedPipeline}.
+ *
+ * Every file results in an exit code: 0 if it was transformed, -1 if it failed
+ * or was skipped, and -999 if a thread hung. In strict mode, the batch aborts
+ * on the first file which was not transformed, otherwise it only aborts on a
+ * hung thread and logs how many files were transformed in the end. The batch
+ * also aborts once the driving thread was interrupted.
+ */
+public class BatchRunner {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(BatchRunner.class);
+
+	/**
+	 * Transforms a single file of the batch.
+	 */
+	@FunctionalInterface
+	public interface FileTask {
+		/**
+		 * Transforms the given file.
+		 *
+		 * @param file the file to transform
+		 * @return the exit code of the file
+		 * @throws IOException                         if the file cannot be read
+		 *                                             or written
+		 * @throws NotSupportedVariabilityTypeException if the model cannot be
+		 *                                             transformed
+		 */
+		Integer transform(Path file)
+				throws IOException, NotSupportedVariabilityTypeException;
+	}
+
+	private final boolean strict;
+
+	/**
+	 * Creates a runner aborting on the first failed file if strict.
+	 *
+	 * @param strict whether failed files abort the batch
+	 */
+	public BatchRunner(final boolean strict) {
+		this.strict = strict;
+	}
+
+	/**
+	 * Transforms the files one after another on the current thread.
+	 *
+	 * @param files the files to transform
+	 * @param task  transforms a single file
+	 * @return 0, or the exit code of the file which aborted the batch
+	 * @throws IOException                         as thrown by the task
+	 * @throws NotSupportedVariabilityTypeException as thrown by the task
+	 * @throws TransformationException             if the batch was interrupted
+	 */
+	public int runSequentially(final Iterator<Path> files, final FileTask task)
+			throws IOException, NotSupportedVariabilityTypeException,
+			TransformationException {
+		int counter = 0;
+		int total = 0;
+		while (files.hasNext()) {
+			checkInterrupted();
+			Path file = files.next();
+			total++;
+			int result = task.transform(file);
+			if (isAborting(file, result)) {
+				return result;
+			}
+			// Use counter as the modifier on the number of files
+			// Counter will be -1 if it isn't 0
+			counter += result;
+		}
+		logUnstrictSummary(counter, total);
+		return 0;
+	}
+
+	/**
+	 * Transforms the files on the given number of worker threads. Files are
+	 * taken from the iterator as workers become free, such that files may be
+	 * discovered while transforming.
+	 *
+	 * @param files       the files to transform
+	 * @param workerCount the number of worker threads
+	 * @param task        transforms a single file, called concurrently
+	 * @return 0, or the exit code of the file which aborted the batch
+	 * @throws IOException                         as thrown by the task
+	 * @throws NotSupportedVariabilityTypeException as thrown by the task
+	 * @throws TransformationException             if the batch was interrupted
+	 */
+	public int runInParallel(final Iterator<Path> files, final int workerCount,
+			final FileTask task) throws IOException,
+			NotSupportedVariabilityTypeException, TransformationException {
+		AtomicInteger workerIndex = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(workerCount, r -> {
+			Thread worker = new Thread(r,
+					"transformation-worker_" + workerIndex.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
+		CompletionService<Integer> completionService = new ExecutorCompletionService<>(
+				workers);
+		Map<Future<Integer>, Path> submitted = new HashMap<>();
+		// Files may be discovered lazily, only keep a few per worker queued
+		int maxInFlight = workerCount * 2;
+		int counter = 0;
+		int total = 0;
+		try {
+			while (files.hasNext() || !submitted.isEmpty()) {
+				checkInterrupted();
+				if (files.hasNext() && submitted.size() < maxInFlight) {
+					Path file = files.next();
+					submitted.put(
+							completionService.submit(() -> task.transform(file)),
+							file);
+					continue;
+				}
+				Future<Integer> done = completionService.take();
+				Path file = submitted.remove(done);
+				total++;
+				int result;
+				try {
+					result = done.get();
+				} catch (ExecutionException e) {
+					throw rethrowWorkerFailure(e);
+				}
+				if (isAborting(file, result)) {
+					return result;
+				}
+				counter += result;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TransformationException(e);
+		} finally {
+			workers.shutdownNow();
+		}
+		logUnstrictSummary(counter, total);
+		return 0;
+	}
+
+	/**
+	 * Feeds the items into the pipeline, whose stages were already added, and
+	 * collects them as they leave the last stage. The statistics of the stages
+	 * are logged at the end.
+	 *
+	 * @param <T>    the items passed between the stages
+	 * @param stages the pipeline, closed by the caller
+	 * @param items  the items to transform
+	 * @param fileOf the file of an item
+	 * @param leave  called once the item left the pipeline, returns its exit
+	 *               code
+	 * @return 0, or the exit code of the file which aborted the batch
+	 * @throws IOException                         as thrown by a stage
+	 * @throws NotSupportedVariabilityTypeException as thrown by a stage
+	 * @throws TransformationException             if the batch was interrupted
+	 */
+	public <T> int runPipelined(final StagedPipeline<T> stages,
+			final Iterator<T> items, final Function<T, Path> fileOf,
+			final ToIntFunction<T> leave) throws IOException,
+			NotSupportedVariabilityTypeException, TransformationException {
+		int counter = 0;
+		int total = 0;
+		stages.start(items);
+		try {
+			T done;
+			while ((done = stages.take()) != null) {
+				checkInterrupted();
+				total++;
+				int result = leave.applyAsInt(done);
+				if (isAborting(fileOf.apply(done), result)) {
+					return result;
+				}
+				counter += result;
+			}
+		} catch (ExecutionException e) {
+			throw rethrowWorkerFailure(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TransformationException(e);
+		} finally {
+			logPipelineStatistics(stages.getStatistics());
+		}
+		logUnstrictSummary(counter, total);
+		return 0;
+	}
+
+	private static void logPipelineStatistics(
+			final List<StageStatistics> statistics) {
+		statistics.forEach(LOGGER::info);
+		statistics.stream()
+				.max(Comparator.comparingDouble(StageStatistics::utilisation))
+				.ifPresent(bottleneck -> LOGGER.info(String.format(
+						"Pipeline bottleneck: stage %s",
+						bottleneck.name())));
+	}
+
+	// Decides whether the batch has to be aborted after the given result
+	private boolean isAborting(final Path file, final int result) {
+		if (result != 0 && strict) {
+			LOGGER.error(String.format(
+					"Error during transformation of file %s...",
+					file.getFileName()));
+			return true;
+		} else if (result == -999) { // FIXME Smelly code
+			LOGGER.error("Timeout with misbehaving thread, aborting!");
+			return true;
+		}
+		return false;
+	}
+
+	private void logUnstrictSummary(final int counter, final int total) {
+		if (!strict)
+			LOGGER.info("Unstrict mode: " + (counter + total) + " from "
+					+ total + " files could be successfully transformed.");
+	}
+
+	/**
+	 * Rethrows whatever a worker threw, as if it was thrown sequentially.
+	 *
+	 * @param e the failure of the worker
+	 * @return the failure to throw if it is no checked exception of a task
+	 * @throws IOException                         if the worker threw it
+	 * @throws NotSupportedVariabilityTypeException if the worker threw it
+	 */
+	public static TransformationException rethrowWorkerFailure(
+			final ExecutionException e)
+			throws IOException, NotSupportedVariabilityTypeException {
+		Throwable cause = e.getCause();
+		if (cause instanceof IOException ioException) {
+			throw ioException;
+		} else if (cause instanceof NotSupportedVariabilityTypeException notSupportedException) {
+			throw notSupportedException;
+		} else if (cause instanceof RuntimeException runtimeException) {
+			throw runtimeException;
+		} else if (cause instanceof Error error) {
+			throw error;
+		}
+		return new TransformationException(e);
+	}
+
+	/**
+	 * Aborts the batch once the current thread was interrupted, e.g., by the
+	 * deadline of a serve job.
+	 *
+	 * @throws TransformationException if the current thread was interrupted
+	 */
+	public static void checkInterrupted() throws TransformationException {
+		if (Thread.currentThread().isInterrupted()) {
+			LOGGER.warn("Interrupted, aborting the batch!");
+			throw new TransformationException(new InterruptedException());
+		}
+	}
+}
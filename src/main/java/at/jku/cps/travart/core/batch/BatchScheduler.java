@@ -0,0 +1,200 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.benchmarking.BenchmarkResultsWriter;
+
+/**
+ * Orders the models of a batch before they are handed to the workers. Each
+ * file is inspected once, orders never touch the file system while sorting.
+ *
+ * With {@link Order#LONGEST_FIRST}, models expected to take longest are
+ * started first, such that no worker picks up a long-running model when the
+ * other workers are about to run dry (longest processing time first). Expected
+ * costs are taken from results files of earlier sessions, i.e., the sum of
+ * all timing columns recorded for a model. Models without history are
+ * estimated from their file size, scaled with the ratio of recorded time to
+ * file size of the models with history.
+ */
+public class BatchScheduler {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(BatchScheduler.class);
+
+	// Timing columns of the results files, e.g., transformationTime
+	private static final String TIME_COLUMN_SUFFIX = "Time";
+
+	/**
+	 * Order in which the models of a batch are processed.
+	 */
+	public enum Order {
+		/**
+		 * Smallest files first, the order used by TraVarT so far.
+		 */
+		SMALLEST_FIRST,
+		/**
+		 * Highest expected cost first, minimises the makespan of parallel runs.
+		 */
+		LONGEST_FIRST
+	}
+
+	/**
+	 * A model of the batch together with its expected cost.
+	 *
+	 * @param file         the model
+	 * @param size         size of the file in bytes
+	 * @param expectedCost expected cost in microseconds, or in bytes if no
+	 *                     history is available at all
+	 * @param recorded     whether the cost was recorded by an earlier session
+	 */
+	public record ScheduledFile(Path file, long size, double expectedCost,
+			boolean recorded) {
+	}
+
+	// Recorded file name -> summed timings, averaged over all recorded entries
+	private final Map<String, Double> recordedCosts = new HashMap<>();
+
+	/**
+	 * Adds the timings of a results file written by
+	 * {@link BenchmarkResultsWriter}. Entries of all target types are
+	 * averaged. Missing or unreadable files are ignored.
+	 *
+	 * @param resultsFile the results file of an earlier session
+	 */
+	public void addHistory(final Path resultsFile) {
+		if (Objects.isNull(resultsFile) || !Files.isRegularFile(resultsFile)) {
+			return;
+		}
+		Map<String, double[]> sums = new HashMap<>();
+		try (Reader reader = Files.newBufferedReader(resultsFile);
+				CSVParser parser = CSVFormat.DEFAULT.builder().setHeader()
+						.setSkipHeaderRecord(true).get().parse(reader)) {
+			List<String> timeColumns = parser.getHeaderNames().stream()
+					.filter(c -> c.endsWith(TIME_COLUMN_SUFFIX)).toList();
+			for (CSVRecord record : parser) {
+				if (!record.isSet(BenchmarkResultsWriter.FILE_NAME_COLUMN)) {
+					continue;
+				}
+				double cost = 0;
+				boolean timed = false;
+				for (String column : timeColumns) {
+					if (record.isSet(column)) {
+						try {
+							cost += Double.parseDouble(record.get(column));
+							timed = true;
+						} catch (NumberFormatException e) {
+							// Failed entries have no timings
+						}
+					}
+				}
+				if (timed) {
+					double[] sum = sums.computeIfAbsent(
+							record.get(BenchmarkResultsWriter.FILE_NAME_COLUMN),
+							k -> new double[2]);
+					sum[0] += cost;
+					sum[1]++;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn(String.format(
+					"Unable to read timings from %s, ignoring it: %s",
+					resultsFile, e.getMessage()));
+			return;
+		}
+		sums.forEach((name, sum) -> recordedCosts.merge(name, sum[0] / sum[1],
+				(a, b) -> (a + b) / 2));
+		LOGGER.debug(String.format("Loaded timings of %d models from %s...",
+				sums.size(), resultsFile));
+	}
+
+	/**
+	 * Returns the given models in the given order. Duplicates are removed.
+	 * Recorded timings are looked up by the file names of the models.
+	 *
+	 * @param files the models of the batch
+	 * @param order the order to process the models in
+	 * @return the scheduled models
+	 */
+	public List<ScheduledFile> schedule(final Collection<Path> files,
+			final Order order) {
+		return schedule(files, order, file -> file.getFileName().toString());
+	}
+
+	/**
+	 * Returns the given models in the given order. Duplicates are removed.
+	 *
+	 * @param files the models of the batch
+	 * @param order the order to process the models in
+	 * @param key   the name under which the timings of a model are recorded
+	 *              in the results files, e.g., its path relative to the source
+	 *              folder
+	 * @return the scheduled models
+	 */
+	public List<ScheduledFile> schedule(final Collection<Path> files,
+			final Order order, final Function<Path, String> key) {
+		Map<Path, Long> sizes = new LinkedHashMap<>();
+		for (Path file : files) {
+			sizes.computeIfAbsent(file, BatchScheduler::sizeOf);
+		}
+		double costPerByte = estimateCostPerByte(sizes, key);
+		List<ScheduledFile> scheduled = new ArrayList<>(sizes.size());
+		sizes.forEach((file, size) -> {
+			Double recorded = recordedCosts.get(key.apply(file));
+			scheduled.add(Objects.nonNull(recorded)
+					? new ScheduledFile(file, size, recorded, true)
+					: new ScheduledFile(file, size, size * costPerByte, false));
+		});
+		Comparator<ScheduledFile> bySize = Comparator
+				.comparingLong(ScheduledFile::size);
+		Comparator<ScheduledFile> comparator = order == Order.LONGEST_FIRST
+				? Comparator.comparingDouble(ScheduledFile::expectedCost)
+						.reversed().thenComparing(bySize.reversed())
+				: bySize;
+		scheduled.sort(comparator
+				.thenComparing(s -> s.file().toString()));
+		return scheduled;
+	}
+
+	private double estimateCostPerByte(final Map<Path, Long> sizes,
+			final Function<Path, String> key) {
+		double cost = 0;
+		double bytes = 0;
+		for (Map.Entry<Path, Long> entry : sizes.entrySet()) {
+			Double recorded = recordedCosts.get(key.apply(entry.getKey()));
+			if (Objects.nonNull(recorded) && entry.getValue() > 0
+					&& entry.getValue() < Long.MAX_VALUE) {
+				cost += recorded;
+				bytes += entry.getValue();
+			}
+		}
+		// Without history, the file size is the best guess
+		return bytes == 0 ? 1 : cost / bytes;
+	}
+
+	private static long sizeOf(final Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			// Sorted as the largest files, like the order used so far
+			return Long.MAX_VALUE;
+		}
+	}
+}
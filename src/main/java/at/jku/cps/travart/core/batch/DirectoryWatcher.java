@@ -0,0 +1,208 @@
+package at.jku.cps.travart.core.batch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.io.TraVarTFileUtils;
+
+/**
+ * Watches a folder for created and modified models. Changes are debounced:
+ * editors and copy operations emit several events per file, so changes are
+ * collected until no further event arrived for the debounce period, and each
+ * changed model is reported once. Deleted models are not reported.
+ *
+ * If the file system dropped events, all models of the folder are reported.
+ * Subdirectories are watched too if the watcher is recursive, including
+ * subdirectories created while watching. Excluded paths, e.g., the folder the
+ * outputs are written to, are neither watched nor reported.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(DirectoryWatcher.class);
+
+	private final Path root;
+	private final boolean recursive;
+	private final List<String> extensions;
+	private final long debounceMillis;
+	// Absolute and normalized
+	private final List<Path> excluded;
+	private final WatchService watchService;
+	// Directory of each registered key, keys are polled by a single thread
+	private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+	/**
+	 * Starts watching the given folder.
+	 *
+	 * @param root           the folder to watch
+	 * @param recursive      whether subdirectories are watched too
+	 * @param extensions     the file extensions of the models
+	 * @param debounceMillis the time in milliseconds without events before
+	 *                       changes are reported
+	 * @param excluded       files and folders which are not watched, e.g., the
+	 *                       outputs written while watching
+	 * @throws IOException if the folder cannot be watched
+	 */
+	public DirectoryWatcher(final Path root, final boolean recursive,
+			final Collection<String> extensions, final long debounceMillis,
+			final Collection<Path> excluded) throws IOException {
+		this.root = root;
+		this.recursive = recursive;
+		this.extensions = List.copyOf(extensions);
+		this.debounceMillis = debounceMillis;
+		this.excluded = excluded.stream()
+				.map(path -> path.toAbsolutePath().normalize()).toList();
+		this.watchService = root.getFileSystem().newWatchService();
+		register(root);
+	}
+
+	/**
+	 * Blocks until models were created or modified and no further event arrived
+	 * for the debounce period.
+	 *
+	 * @return the changed models, sorted, or an empty set if the watcher was
+	 *         closed
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Set<Path> awaitChanges() throws InterruptedException {
+		Set<Path> changed = new TreeSet<>();
+		try {
+			WatchKey key = watchService.take();
+			while (Objects.nonNull(key)) {
+				collect(key, changed);
+				key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+				if (Objects.isNull(key) && changed.isEmpty()) {
+					// Only irrelevant events so far, keep waiting
+					key = watchService.take();
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			return Set.of();
+		}
+		// Files may have been deleted again or replaced by directories
+		changed.removeIf(file -> !Files.isRegularFile(file));
+		return changed;
+	}
+
+	private void collect(final WatchKey key, final Set<Path> changed) {
+		Path directory = directories.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				LOGGER.warn(String.format(
+						"Lost file system events in %s, rescanning all models...",
+						directory));
+				addAll(root, changed);
+				continue;
+			}
+			if (Objects.isNull(directory)) {
+				continue;
+			}
+			Path file = directory.resolve((Path) event.context());
+			if (isExcluded(file)) {
+				continue;
+			} else if (recursive && event.kind() == ENTRY_CREATE && Files
+					.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+				// Models copied along with the directory emit no events
+				register(file);
+				addAll(file, changed);
+			} else if (isModel(file)) {
+				changed.add(file);
+			}
+		}
+		if (!key.reset()) {
+			// Directory was deleted
+			directories.remove(key);
+		}
+	}
+
+	private void addAll(final Path directory, final Set<Path> changed) {
+		if (recursive) {
+			TraVarTFileUtils.walkFiles(directory, extensions)
+					.forEachRemaining(file -> {
+						if (!isExcluded(file)) {
+							changed.add(file);
+						}
+					});
+			return;
+		}
+		try (DirectoryStream<Path> entries = Files
+				.newDirectoryStream(directory)) {
+			for (Path entry : entries) {
+				if (isModel(entry) && !isExcluded(entry)) {
+					changed.add(entry);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn(String.format("Unable to list %s: %s", directory,
+					e.getMessage()));
+		}
+	}
+
+	private boolean isModel(final Path file) {
+		String name = file.getFileName().toString();
+		return extensions.stream().anyMatch(name::endsWith);
+	}
+
+	private boolean isExcluded(final Path path) {
+		Path normalized = path.toAbsolutePath().normalize();
+		return excluded.stream().anyMatch(normalized::startsWith);
+	}
+
+	private void register(final Path start) {
+		Deque<Path> pending = new ArrayDeque<>();
+		pending.push(start);
+		while (!pending.isEmpty()) {
+			Path directory = pending.pop();
+			try {
+				directories.put(directory.register(watchService, ENTRY_CREATE,
+						ENTRY_MODIFY), directory);
+				if (recursive) {
+					try (DirectoryStream<Path> entries = Files
+							.newDirectoryStream(directory,
+									entry -> Files.isDirectory(entry,
+											LinkOption.NOFOLLOW_LINKS)
+											&& !isExcluded(entry))) {
+						entries.forEach(pending::push);
+					}
+				}
+			} catch (IOException e) {
+				LOGGER.warn(String.format("Unable to watch %s, ignoring it: %s",
+						directory, e.getMessage()));
+			}
+		}
+		LOGGER.debug(String.format("Watching %d directories...",
+				directories.size()));
+	}
+
+	/**
+	 * Stops watching, a blocked {@link #awaitChanges()} returns no changes.
+	 */
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+}
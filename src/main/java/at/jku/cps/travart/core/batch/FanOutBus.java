@@ -0,0 +1,62 @@
+package at.jku.cps.travart.core.batch;
+
+import java.util.Map;
+
+import com.google.common.eventbus.EventBus;
+
+import at.jku.cps.travart.core.benchmarking.BenchmarkEventBus;
+import at.jku.cps.travart.core.benchmarking.TransformationEndEvent;
+
+/**
+ * Forwards the events of stages shared by several target types, i.e., the
+ * deserialization and the transformation into the pivot model, to the buses of
+ * all target types.
+ *
+ * Listens to exactly the events the target buses listen to, such that emitters
+ * skip creating all other events. The end of the last shared step is forwarded
+ * as intermediate only to target types which need further steps.
+ */
+public final class FanOutBus extends BenchmarkEventBus {
+
+	// Whether the target type needs steps after the pivot model, by bus
+	private final Map<EventBus, Boolean> targets;
+	private final String modelName;
+
+	/**
+	 * Creates a bus forwarding to the given target buses.
+	 *
+	 * @param targets   the buses of the target types, mapped to whether the
+	 *                  target type needs steps after the shared ones
+	 * @param modelName the name of the transformed model
+	 */
+	public FanOutBus(final Map<EventBus, Boolean> targets,
+			final String modelName) {
+		this.targets = targets;
+		this.modelName = modelName;
+	}
+
+	@Override
+	public boolean hasListeners(final Class<?> eventType) {
+		for (EventBus target : targets.keySet()) {
+			if (BenchmarkEventBus.isListening(target, eventType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void post(final Object event) {
+		targets.forEach((target, intermediate) -> {
+			// The last shared step is final for some target types only
+			if (event instanceof TransformationEndEvent end
+					&& end.intermediate != intermediate) {
+				target.post(new TransformationEndEvent(end.getTimestamp(),
+						modelName, end.getContext(), end.finalSize,
+						end.success, intermediate));
+			} else {
+				target.post(event);
+			}
+		});
+	}
+}
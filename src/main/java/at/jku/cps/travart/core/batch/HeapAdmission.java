@@ -0,0 +1,234 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Admits models of a parallel batch only while the projected heap stays within
+ * a budget, such that several large models picked up at once do not exhaust the
+ * heap of the whole run.
+ *
+ * The heap required by a model is estimated from its file size, scaled with a
+ * ratio of heap bytes per file byte. The ratio is calibrated after every
+ * garbage collection: the heap still used after the collection, minus the heap
+ * used before the batch started, is attributed to the models in flight. The
+ * projected heap is the heap used before the batch plus the estimates of all
+ * models in flight.
+ *
+ * Intake is paused while the projected heap of the next model exceeds the
+ * budget, or while the heap used after the last garbage collection exceeds the
+ * given share of the maximum heap (GC pressure). A model is always admitted if
+ * no other model is in flight, so a single model exceeding the budget is
+ * attempted anyway. Instances are thread-safe.
+ */
+public class HeapAdmission {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(HeapAdmission.class);
+
+	// Parsed models typically need a multiple of their file size
+	private static final double INITIAL_BYTES_PER_FILE_BYTE = 50;
+	// Weight of the latest calibration, smooths out single collections
+	private static final double CALIBRATION_WEIGHT = 0.3;
+	// Interval in which paused intake checks the heap again
+	private static final long RECHECK_MILLIS = 100;
+
+	private final long budgetBytes;
+	private final double pressureThreshold;
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private final List<MemoryPoolMXBean> heapPools = ManagementFactory
+			.getMemoryPoolMXBeans().stream()
+			.filter(pool -> pool.getType() == MemoryType.HEAP
+					&& pool.isCollectionUsageThresholdSupported())
+			.toList();
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory
+			.getGarbageCollectorMXBeans();
+	private final long baselineBytes;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	// Guarded by lock
+	private double bytesPerFileByte = INITIAL_BYTES_PER_FILE_BYTE;
+	private long inFlightFileBytes;
+	private int inFlight;
+	private long collections;
+
+	/**
+	 * Admission of a single model, closed once the model left the batch.
+	 */
+	public final class Ticket implements AutoCloseable {
+
+		private final long fileBytes;
+		private boolean closed;
+
+		private Ticket(final long fileBytes) {
+			this.fileBytes = fileBytes;
+		}
+
+		@Override
+		public void close() {
+			release(this);
+		}
+	}
+
+	/**
+	 * Creates an admission control for the heap of the current JVM. The heap
+	 * used at this time is considered the baseline of the batch.
+	 *
+	 * @param budgetBytes       the heap in bytes the batch may use, including
+	 *                          the baseline
+	 * @param pressureThreshold share of the maximum heap still used after a
+	 *                          garbage collection which pauses intake, between
+	 *                          0 and 1
+	 */
+	public HeapAdmission(final long budgetBytes,
+			final double pressureThreshold) {
+		if (pressureThreshold <= 0 || pressureThreshold > 1) {
+			throw new IllegalArgumentException(
+					"Pressure threshold must be in (0, 1]!");
+		}
+		this.budgetBytes = budgetBytes;
+		this.pressureThreshold = pressureThreshold;
+		this.baselineBytes = memory.getHeapMemoryUsage().getUsed();
+		this.collections = countCollections();
+		long max = memory.getHeapMemoryUsage().getMax();
+		if (max > 0 && budgetBytes > max) {
+			LOGGER.warn(String.format(
+					"Heap budget of %d MB exceeds the maximum heap of %d MB!",
+					toMegabytes(budgetBytes), toMegabytes(max)));
+		}
+	}
+
+	/**
+	 * Blocks until the given model may be transformed.
+	 *
+	 * @param file the model
+	 * @return the admission, to be closed once the model is done
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Ticket acquire(final Path file) throws InterruptedException {
+		Ticket ticket = new Ticket(sizeOf(file));
+		lock.lock();
+		try {
+			boolean paused = false;
+			while (inFlight > 0 && !admits(ticket)) {
+				if (!paused) {
+					LOGGER.info(String.format(
+							"Pausing intake of %s, %d model(s) in flight...",
+							file.getFileName(), inFlight));
+					paused = true;
+				}
+				released.await(RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			inFlight++;
+			inFlightFileBytes += ticket.fileBytes;
+			return ticket;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(final Ticket ticket) {
+		lock.lock();
+		try {
+			if (ticket.closed) {
+				return;
+			}
+			ticket.closed = true;
+			calibrate();
+			inFlight--;
+			inFlightFileBytes -= ticket.fileBytes;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Guarded by lock
+	private boolean admits(final Ticket ticket) {
+		calibrate();
+		long live = liveBytesAfterLastCollection();
+		long max = memory.getHeapMemoryUsage().getMax();
+		if (max > 0 && live > pressureThreshold * max) {
+			LOGGER.debug(String.format(
+					"GC pressure: %d MB of %d MB used after last collection",
+					toMegabytes(live), toMegabytes(max)));
+			return false;
+		}
+		long projected = baselineBytes + (long) (bytesPerFileByte
+				* (inFlightFileBytes + ticket.fileBytes));
+		if (projected > budgetBytes) {
+			LOGGER.debug(String.format(
+					"Projected heap of %d MB exceeds the budget of %d MB",
+					toMegabytes(projected), toMegabytes(budgetBytes)));
+			return false;
+		}
+		return true;
+	}
+
+	// Guarded by lock, attributes the heap surviving a new collection to the
+	// models in flight
+	private void calibrate() {
+		long count = countCollections();
+		if (count == collections) {
+			return;
+		}
+		collections = count;
+		long live = liveBytesAfterLastCollection();
+		if (inFlightFileBytes <= 0 || live <= baselineBytes) {
+			return;
+		}
+		double observed = (double) (live - baselineBytes) / inFlightFileBytes;
+		bytesPerFileByte = (1 - CALIBRATION_WEIGHT) * bytesPerFileByte
+				+ CALIBRATION_WEIGHT * observed;
+		LOGGER.debug(String.format(
+				"Estimated heap per file byte: %.1f (observed %.1f)",
+				bytesPerFileByte, observed));
+	}
+
+	private long liveBytesAfterLastCollection() {
+		long live = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (Objects.nonNull(usage)) {
+				live += usage.getUsed();
+			}
+		}
+		return live;
+	}
+
+	private long countCollections() {
+		long count = 0;
+		for (GarbageCollectorMXBean collector : collectors) {
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long sizeOf(final Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private static long toMegabytes(final long bytes) {
+		return bytes / (1024 * 1024);
+	}
+}
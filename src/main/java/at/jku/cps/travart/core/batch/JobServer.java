@@ -0,0 +1,274 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Accepts jobs over a local socket, either a Unix domain socket or a TCP socket
+ * bound to the loopback address, and runs them in the current JVM, such that
+ * JVM startup, plugin loading and JIT compilation are paid once.
+ *
+ * Other local users can reach the socket, thus the first line a client sends
+ * must be the token the server was created with. Otherwise, the server answers
+ * {@code 0 error unauthorized} and closes the connection.
+ *
+ * Clients then send one job per line, i.e., the arguments of the job separated by
+ * whitespace, double quotes group arguments containing whitespace. A client
+ * may send further jobs before earlier ones finished. The server answers every
+ * job with one line as soon as it finished, starting with the number of the job
+ * on this connection (counting from 1):
+ * <ul>
+ * <li>{@code <n> done <exit code>} if the job finished in time,</li>
+ * <li>{@code <n> timeout} if the job exceeded its deadline and was
+ * interrupted,</li>
+ * <li>{@code <n> error <message>} if the job could not be run.</li>
+ * </ul>
+ * At most the given number of jobs run concurrently, further jobs are queued.
+ * The deadline of a job includes the time it was queued.
+ */
+public class JobServer implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger(JobServer.class);
+
+	/**
+	 * Runs a single job, see {@link JobServer}.
+	 */
+	@FunctionalInterface
+	public interface JobRunner {
+		/**
+		 * Runs the job with the given arguments.
+		 *
+		 * @param args the arguments of the job
+		 * @return the exit code of the job
+		 * @throws Exception if the job cannot be run
+		 */
+		int run(List<String> args) throws Exception;
+	}
+
+	private final ServerSocketChannel server;
+	private final ExecutorService jobs;
+	private final long jobTimeoutMillis;
+	private final JobRunner runner;
+	private final byte[] token;
+	// Deleted on close, set if listening on a Unix domain socket
+	private final Path socketFile;
+
+	/**
+	 * Binds the server to the given address. Jobs are not accepted before
+	 * {@link #serve()} is called.
+	 *
+	 * @param address          a {@link UnixDomainSocketAddress} or a loopback
+	 *                         address
+	 * @param concurrentJobs   number of jobs run concurrently
+	 * @param jobTimeoutMillis deadline of a single job in milliseconds
+	 * @param runner           runs the jobs
+	 * @param token            the secret clients have to send first
+	 * @throws IOException if the server cannot be bound to the address
+	 */
+	public JobServer(final SocketAddress address, final int concurrentJobs,
+			final long jobTimeoutMillis, final JobRunner runner,
+			final String token) throws IOException {
+		if (address instanceof UnixDomainSocketAddress unixAddress) {
+			socketFile = unixAddress.getPath();
+			// Left behind by a server which was killed
+			if (Files.exists(socketFile) && !Files.isRegularFile(socketFile)
+					&& !Files.isDirectory(socketFile)) {
+				LOGGER.debug(String.format("Removing stale socket %s...",
+						socketFile));
+				Files.delete(socketFile);
+			}
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		} else {
+			socketFile = null;
+			server = ServerSocketChannel.open();
+		}
+		server.bind(address);
+		AtomicInteger jobIndex = new AtomicInteger();
+		this.jobs = Executors.newFixedThreadPool(concurrentJobs, r -> {
+			Thread job = new Thread(r, "job_" + jobIndex.incrementAndGet());
+			job.setDaemon(true);
+			return job;
+		});
+		this.jobTimeoutMillis = jobTimeoutMillis;
+		this.runner = runner;
+		this.token = token.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the address the server is bound to, e.g., to obtain the port
+	 * chosen by the system.
+	 *
+	 * @return the bound address
+	 * @throws IOException if the server is closed
+	 */
+	public SocketAddress getAddress() throws IOException {
+		return server.getLocalAddress();
+	}
+
+	/**
+	 * Accepts connections until the server is closed.
+	 *
+	 * @throws IOException if accepting a connection failed
+	 */
+	public void serve() throws IOException {
+		while (server.isOpen()) {
+			SocketChannel connection;
+			try {
+				connection = server.accept();
+			} catch (ClosedChannelException e) {
+				// Closed by close(), e.g., on shutdown
+				return;
+			}
+			Thread.ofVirtual().name("job-connection_", 0)
+					.start(() -> handle(connection));
+		}
+	}
+
+	private void handle(final SocketChannel connection) {
+		try (connection;
+				BufferedReader reader = new BufferedReader(new InputStreamReader(
+						Channels.newInputStream(connection),
+						StandardCharsets.UTF_8));
+				Writer writer = new OutputStreamWriter(
+						Channels.newOutputStream(connection),
+						StandardCharsets.UTF_8)) {
+			String first = reader.readLine();
+			if (Objects.isNull(first) || !MessageDigest.isEqual(token,
+					first.strip().getBytes(StandardCharsets.UTF_8))) {
+				LOGGER.warn("Rejected connection without a valid token");
+				reply(writer, 0, "error unauthorized");
+				return;
+			}
+			List<Thread> pending = new ArrayList<>();
+			int number = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				List<String> args = tokenize(line);
+				if (args.isEmpty()) {
+					continue;
+				}
+				final int job = ++number;
+				LOGGER.debug(String.format("Received job %d: %s", job, args));
+				long deadline = System.nanoTime()
+						+ TimeUnit.MILLISECONDS.toNanos(jobTimeoutMillis);
+				Future<Integer> result = jobs.submit(() -> runner.run(args));
+				pending.add(Thread.ofVirtual().start(() -> reply(writer, job,
+						await(result, deadline))));
+			}
+			// The client closed its output, answer the remaining jobs
+			for (Thread reply : pending) {
+				reply.join();
+			}
+		} catch (IOException e) {
+			LOGGER.debug("Connection closed: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String await(final Future<Integer> result,
+			final long deadline) {
+		try {
+			return "done " + result.get(deadline - System.nanoTime(),
+					TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			result.cancel(true);
+			return "timeout";
+		} catch (ExecutionException e) {
+			LOGGER.warn("Job failed: " + e.getCause());
+			return "error " + Objects.toString(e.getCause().getMessage(),
+					e.getCause().getClass().getSimpleName()).replace('\n', ' ');
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			return "error interrupted";
+		}
+	}
+
+	private static void reply(final Writer writer, final int job,
+			final String status) {
+		synchronized (writer) {
+			try {
+				writer.write(job + " " + status + "\n");
+				writer.flush();
+			} catch (IOException e) {
+				LOGGER.debug(String.format(
+						"Unable to reply to job %d, client disconnected: %s",
+						job, e.getMessage()));
+			}
+		}
+	}
+
+	/**
+	 * Splits a job into its arguments, see {@link JobServer}.
+	 *
+	 * @param line the job as sent by the client
+	 * @return the arguments of the job
+	 */
+	public static List<String> tokenize(final String line) {
+		List<String> args = new ArrayList<>();
+		StringBuilder current = null;
+		boolean quoted = false;
+		for (char c : line.toCharArray()) {
+			if (c == '"') {
+				quoted = !quoted;
+				if (Objects.isNull(current)) {
+					current = new StringBuilder();
+				}
+			} else if (Character.isWhitespace(c) && !quoted) {
+				if (Objects.nonNull(current)) {
+					args.add(current.toString());
+					current = null;
+				}
+			} else {
+				if (Objects.isNull(current)) {
+					current = new StringBuilder();
+				}
+				current.append(c);
+			}
+		}
+		if (Objects.nonNull(current)) {
+			args.add(current.toString());
+		}
+		return args;
+	}
+
+	/**
+	 * Stops accepting connections and interrupts running jobs.
+	 */
+	@Override
+	public void close() throws IOException {
+		server.close();
+		jobs.shutdownNow();
+		if (Objects.nonNull(socketFile)) {
+			Files.deleteIfExists(socketFile);
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Periodically reports the progress of a batch: throughput, estimated time of
+ * arrival, the number of completed, failed, timed out and skipped models, and
+ * the rolling 50th, 95th and 99th percentile latency of every stage, e.g., the
+ * deserializer, each transformation step and the serializer. Percentiles are
+ * computed over the most recent samples of a stage only, such that they follow
+ * changes during long runs.
+ *
+ * Reports are printed to the console and, if a progress file is given, written
+ * to it as JSON, replacing the previous report atomically. Instances are
+ * thread-safe.
+ */
+public class ProgressReporter implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(ProgressReporter.class);
+
+	// Number of recent samples per stage the percentiles are computed of
+	private static final int WINDOW = 1024;
+
+	/**
+	 * Outcome of a single model.
+	 */
+	public enum Outcome {
+		COMPLETED, FAILED, TIMED_OUT, SKIPPED
+	}
+
+	private final PrintStream console;
+	private final Path progressFile;
+	private final long startedAt = System.nanoTime();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong[] outcomes = new AtomicLong[Outcome
+			.values().length];
+	// Sorted by name, such that reports list the stages in a stable order
+	private final Map<String, Window> stages = new ConcurrentSkipListMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Starts reporting in the given interval.
+	 *
+	 * @param intervalSeconds the interval of the reports in seconds
+	 * @param console         the stream the reports are printed to
+	 * @param progressFile    the file the reports are written to as JSON, may
+	 *                        be null
+	 */
+	public ProgressReporter(final long intervalSeconds,
+			final PrintStream console, final Path progressFile) {
+		this.console = console;
+		this.progressFile = progressFile;
+		for (int i = 0; i < outcomes.length; i++) {
+			outcomes[i] = new AtomicLong();
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread reporter = new Thread(r, "progress-reporter");
+			reporter.setDaemon(true);
+			return reporter;
+		});
+		scheduler.scheduleAtFixedRate(this::report, intervalSeconds,
+				intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Adds models to the expected total of the batch. If the total is unknown,
+	 * e.g., while files are still discovered, no time of arrival is estimated.
+	 *
+	 * @param models the number of models added to the batch
+	 */
+	public void addTotal(final long models) {
+		total.addAndGet(models);
+	}
+
+	/**
+	 * Records the outcome of a model.
+	 *
+	 * @param outcome the outcome
+	 */
+	public void recordOutcome(final Outcome outcome) {
+		outcomes[outcome.ordinal()].incrementAndGet();
+	}
+
+	/**
+	 * Records the latency of a stage which finished.
+	 *
+	 * @param stage        the name of the stage
+	 * @param elapsedNanos the latency of the stage
+	 */
+	public void recordStage(final String stage, final long elapsedNanos) {
+		stages.computeIfAbsent(stage, s -> new Window()).add(elapsedNanos);
+	}
+
+	private void report() {
+		try {
+			Snapshot snapshot = snapshot();
+			console.println(snapshot.toText());
+			if (Objects.nonNull(progressFile)) {
+				write(snapshot.toJson());
+			}
+		} catch (IOException | RuntimeException e) {
+			// Never let a report fail the batch
+			LOGGER.warn("Unable to report progress: " + e.getMessage());
+		}
+	}
+
+	private Snapshot snapshot() {
+		long[] counts = new long[outcomes.length];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = outcomes[i].get();
+		}
+		Map<String, long[]> percentiles = new ConcurrentSkipListMap<>();
+		stages.forEach((name, window) -> percentiles.put(name,
+				window.percentiles()));
+		return new Snapshot(System.nanoTime() - startedAt, total.get(), counts,
+				percentiles);
+	}
+
+	private void write(final String json) throws IOException {
+		Path parent = progressFile.toAbsolutePath().getParent();
+		Path temporary = Files.createTempFile(parent, ".progress", ".tmp");
+		try {
+			Files.writeString(temporary, json, StandardCharsets.UTF_8);
+			try {
+				Files.move(temporary, progressFile,
+						StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, progressFile,
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Stops the periodic reports and reports the final state of the batch.
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		try {
+			scheduler.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		report();
+	}
+
+	// Ring buffer of the most recent latencies of a stage
+	private static final class Window {
+
+		private final long[] samples = new long[WINDOW];
+		private long count;
+
+		private synchronized void add(final long nanos) {
+			samples[(int) (count++ % WINDOW)] = nanos;
+		}
+
+		// Count, p50, p95 and p99 in nanoseconds
+		private long[] percentiles() {
+			long[] sorted;
+			long n;
+			synchronized (this) {
+				n = count;
+				sorted = Arrays.copyOf(samples, (int) Math.min(n, WINDOW));
+			}
+			Arrays.sort(sorted);
+			return new long[] {n, percentile(sorted, 0.50),
+					percentile(sorted, 0.95), percentile(sorted, 0.99)};
+		}
+
+		// Nearest rank
+		private static long percentile(final long[] sorted, final double p) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int rank = (int) Math.ceil(p * sorted.length);
+			return sorted[Math.max(0, rank - 1)];
+		}
+	}
+
+	private record Snapshot(long elapsedNanos, long total, long[] counts,
+			Map<String, long[]> percentiles) {
+
+		private long done() {
+			return Arrays.stream(counts).sum();
+		}
+
+		private double filesPerSecond() {
+			double seconds = elapsedNanos / 1e9;
+			return seconds > 0 ? done() / seconds : 0;
+		}
+
+		// -1 if the total is unknown or nothing finished yet
+		private long etaSeconds() {
+			double rate = filesPerSecond();
+			if (total <= 0 || rate <= 0) {
+				return -1;
+			}
+			return (long) Math.ceil(Math.max(0, total - done()) / rate);
+		}
+
+		private String toText() {
+			StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+					"Progress: %d/%s models, %d completed, %d failed, %d timed out, %d skipped | %.2f models/s | elapsed %s | ETA %s",
+					done(), total > 0 ? Long.toString(total) : "?",
+					counts[Outcome.COMPLETED.ordinal()],
+					counts[Outcome.FAILED.ordinal()],
+					counts[Outcome.TIMED_OUT.ordinal()],
+					counts[Outcome.SKIPPED.ordinal()], filesPerSecond(),
+					formatDuration(TimeUnit.NANOSECONDS.toSeconds(elapsedNanos)),
+					etaSeconds() < 0 ? "?" : formatDuration(etaSeconds())));
+			percentiles.forEach((stage, p) -> text.append(String.format(
+					Locale.ROOT,
+					"%n  %s: %d run(s), p50 %.1f ms, p95 %.1f ms, p99 %.1f ms",
+					stage, p[0], toMillis(p[1]), toMillis(p[2]),
+					toMillis(p[3]))));
+			return text.toString();
+		}
+
+		private String toJson() {
+			StringBuilder json = new StringBuilder(String.format(Locale.ROOT,
+					"{\"elapsedSeconds\":%.3f,\"total\":%s,\"done\":%d,\"completed\":%d,\"failed\":%d,\"timedOut\":%d,\"skipped\":%d,\"modelsPerSecond\":%.3f,\"etaSeconds\":%s,\"stages\":{",
+					elapsedNanos / 1e9, total > 0 ? Long.toString(total) : "null",
+					done(), counts[Outcome.COMPLETED.ordinal()],
+					counts[Outcome.FAILED.ordinal()],
+					counts[Outcome.TIMED_OUT.ordinal()],
+					counts[Outcome.SKIPPED.ordinal()], filesPerSecond(),
+					etaSeconds() < 0 ? "null" : Long.toString(etaSeconds())));
+			String separator = "";
+			for (Map.Entry<String, long[]> stage : percentiles.entrySet()) {
+				long[] p = stage.getValue();
+				json.append(separator).append(String.format(Locale.ROOT,
+						"\"%s\":{\"count\":%d,\"p50Millis\":%.3f,\"p95Millis\":%.3f,\"p99Millis\":%.3f}",
+						escape(stage.getKey()), p[0], toMillis(p[1]),
+						toMillis(p[2]), toMillis(p[3])));
+				separator = ",";
+			}
+			return json.append("}}").append(System.lineSeparator())
+					.toString();
+		}
+
+		private static double toMillis(final long nanos) {
+			return nanos / 1e6;
+		}
+
+		private static String formatDuration(final long seconds) {
+			return String.format("%02d:%02d:%02d", seconds / 3600,
+					seconds / 60 % 60, seconds % 60);
+		}
+
+		private static String escape(final String value) {
+			StringBuilder escaped = new StringBuilder();
+			for (char c : value.toCharArray()) {
+				if (c == '"' || c == '\\') {
+					escaped.append('\\').append(c);
+				} else if (c < 0x20) {
+					escaped.append(String.format("\\u%04x", (int) c));
+				} else {
+					escaped.append(c);
+				}
+			}
+			return escaped.toString();
+		}
+	}
+}
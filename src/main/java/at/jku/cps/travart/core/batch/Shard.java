@@ -0,0 +1,77 @@
+package at.jku.cps.travart.core.batch;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.StringJoiner;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Deterministic partition of a corpus into shards, such that several machines
+ * can each transform one shard without any coordination. A model belongs to the
+ * shard selected by a stable hash of its path relative to the corpus folder.
+ * The partition therefore only depends on the relative paths, not on the
+ * machine, the location of the corpus or the order in which files are found.
+ *
+ * @param index the number of the shard, from 1 to count
+ * @param count the number of shards
+ */
+public record Shard(int index, int count) {
+
+	// Stable across JVMs and versions, unlike String.hashCode() of paths
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	public Shard {
+		if (count < 1 || index < 1 || index > count) {
+			throw new IllegalArgumentException(
+					"Shard must be given as i/n with 1 <= i <= n!");
+		}
+	}
+
+	/**
+	 * Parses a shard given as {@code i/n}, e.g., {@code 2/4} for the second of
+	 * four shards.
+	 *
+	 * @param shard the shard
+	 * @return the parsed shard
+	 * @throws IllegalArgumentException if the shard is malformed
+	 */
+	public static Shard parse(final String shard) {
+		String[] parts = shard.trim().split("/");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException(
+					"Shard must be given as i/n, e.g., 1/4!");
+		}
+		try {
+			return new Shard(Integer.parseInt(parts[0].trim()),
+					Integer.parseInt(parts[1].trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+					"Shard must be given as i/n, e.g., 1/4!", e);
+		}
+	}
+
+	/**
+	 * Checks whether the given model belongs to this shard.
+	 *
+	 * @param root the folder of the corpus
+	 * @param file the model within the folder
+	 * @return true if the model is transformed by this shard
+	 */
+	public boolean contains(final Path root, final Path file) {
+		Path relative = root.toAbsolutePath().normalize()
+				.relativize(file.toAbsolutePath().normalize());
+		// Same key on all platforms, regardless of the separator
+		StringJoiner key = new StringJoiner("/");
+		relative.forEach(name -> key.add(name.toString()));
+		long hash = HASH.hashString(key.toString(), StandardCharsets.UTF_8)
+				.asLong();
+		return Math.floorMod(hash, count) == index - 1;
+	}
+
+	@Override
+	public String toString() {
+		return index + "/" + count;
+	}
+}
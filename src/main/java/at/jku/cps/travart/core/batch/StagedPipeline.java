@@ -0,0 +1,299 @@
+package at.jku.cps.travart.core.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs items through a sequence of stages, each stage served by its own worker
+ * threads. Stages are connected by bounded hand-off queues, so a slow stage
+ * applies back-pressure to its predecessors while faster stages work on other
+ * items, e.g., the next model is parsed while the current one is transformed.
+ *
+ * A stage may finish an item early (e.g., because it failed) by returning
+ * false, the item is then handed out by {@link #take()} without passing the
+ * remaining stages. Per stage, the pipeline records queue depths and busy time
+ * to identify the bottleneck, see {@link #getStatistics()}.
+ *
+ * @param <T> type of the items passing through the pipeline
+ */
+public class StagedPipeline<T> implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(StagedPipeline.class);
+
+	/**
+	 * A single stage of the pipeline.
+	 *
+	 * @param <T> type of the items passing through the pipeline
+	 */
+	@FunctionalInterface
+	public interface Stage<T> {
+
+		/**
+		 * Processes the given item.
+		 *
+		 * @param item the item to process
+		 * @return true if the item should be passed on to the next stage, false
+		 *         if it is finished
+		 * @throws Exception if processing failed, the item is finished
+		 *                   exceptionally
+		 */
+		boolean process(T item) throws Exception;
+	}
+
+	private final int queueCapacity;
+	private final List<StageRunner> stages = new ArrayList<>();
+	private final List<Thread> threads = new ArrayList<>();
+	private final BlockingQueue<Completion<T>> completed = new LinkedBlockingQueue<>();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicBoolean sourceExhausted = new AtomicBoolean();
+	private final AtomicBoolean endSignaled = new AtomicBoolean();
+	private boolean ended;
+	private long startedAt;
+
+	/**
+	 * Creates a pipeline without any stages.
+	 *
+	 * @param queueCapacity capacity of the hand-off queue in front of each stage
+	 */
+	public StagedPipeline(final int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException(
+					"Queue capacity must be at least 1!");
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Appends a stage to the pipeline. Stages must be added before the pipeline
+	 * is started.
+	 *
+	 * @param name    name of the stage, used for thread names and statistics
+	 * @param workers number of threads serving the stage
+	 * @param stage   the stage
+	 * @return this pipeline
+	 */
+	public StagedPipeline<T> addStage(final String name, final int workers,
+			final Stage<T> stage) {
+		if (startedAt != 0) {
+			throw new IllegalStateException("Pipeline was already started!");
+		}
+		stages.add(new StageRunner(name, workers, stage,
+				new ArrayBlockingQueue<>(queueCapacity)));
+		return this;
+	}
+
+	/**
+	 * Starts the stage threads and a feeder thread which pushes the items of the
+	 * given source into the first stage.
+	 *
+	 * @param source the items to process, may be produced lazily
+	 */
+	public void start(final Iterator<T> source) {
+		if (stages.isEmpty()) {
+			throw new IllegalStateException("Pipeline has no stages!");
+		}
+		startedAt = System.nanoTime();
+		for (int i = 0; i < stages.size(); i++) {
+			StageRunner runner = stages.get(i);
+			StageRunner next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+			for (int w = 1; w <= runner.workers; w++) {
+				startThread(() -> runner.serve(next),
+						"pipeline-" + runner.name + "_" + w);
+			}
+		}
+		startThread(() -> feed(source), "pipeline-feeder");
+	}
+
+	/**
+	 * Waits for the next item which passed all stages or was finished early.
+	 *
+	 * @return the next finished item, or null if all items are finished
+	 * @throws ExecutionException   if a stage threw an exception for the item
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public T take() throws ExecutionException, InterruptedException {
+		if (ended) {
+			return null;
+		}
+		Completion<T> completion = completed.take();
+		if (completion.end) {
+			ended = true;
+			return null;
+		}
+		if (completion.failure != null) {
+			throw new ExecutionException(completion.failure);
+		}
+		return completion.item;
+	}
+
+	/**
+	 * Returns the statistics of all stages, in order of the stages.
+	 *
+	 * @return statistics of the stages
+	 */
+	public List<StageStatistics> getStatistics() {
+		long elapsed = System.nanoTime() - startedAt;
+		List<StageStatistics> statistics = new ArrayList<>();
+		for (StageRunner runner : stages) {
+			statistics.add(runner.getStatistics(elapsed));
+		}
+		return Collections.unmodifiableList(statistics);
+	}
+
+	/**
+	 * Interrupts all threads of the pipeline. Items which are still in flight
+	 * are abandoned.
+	 */
+	@Override
+	public void close() {
+		threads.forEach(Thread::interrupt);
+	}
+
+	private void startThread(final Runnable runnable, final String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		threads.add(thread);
+		thread.start();
+	}
+
+	private void feed(final Iterator<T> source) {
+		BlockingQueue<T> first = stages.get(0).input;
+		try {
+			while (source.hasNext()) {
+				T item = source.next();
+				inFlight.incrementAndGet();
+				first.put(item);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		} catch (RuntimeException e) {
+			LOGGER.error("Pipeline source failed, no further items are fed!",
+					e);
+		}
+		sourceExhausted.set(true);
+		signalEndIfDone();
+	}
+
+	private void complete(final Completion<T> completion) {
+		completed.add(completion);
+		inFlight.decrementAndGet();
+		signalEndIfDone();
+	}
+
+	private void signalEndIfDone() {
+		if (sourceExhausted.get() && inFlight.get() == 0
+				&& endSignaled.compareAndSet(false, true)) {
+			completed.add(new Completion<>(null, null, true));
+		}
+	}
+
+	private final class StageRunner {
+
+		private final String name;
+		private final int workers;
+		private final Stage<T> stage;
+		private final BlockingQueue<T> input;
+
+		private final AtomicLong processed = new AtomicLong();
+		private final AtomicLong busyNanos = new AtomicLong();
+		private final AtomicLong queueDepthSum = new AtomicLong();
+		private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+		private StageRunner(final String name, final int workers,
+				final Stage<T> stage, final BlockingQueue<T> input) {
+			if (workers < 1) {
+				throw new IllegalArgumentException(
+						"Each stage needs at least one worker!");
+			}
+			this.name = name;
+			this.workers = workers;
+			this.stage = stage;
+			this.input = input;
+		}
+
+		private void serve(final StageRunner next) {
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					T item = input.take();
+					// Sample the depth of the queue the item waited in
+					int depth = input.size();
+					queueDepthSum.addAndGet(depth);
+					maxQueueDepth.accumulateAndGet(depth, Math::max);
+					long begin = System.nanoTime();
+					boolean passOn;
+					try {
+						passOn = stage.process(item);
+					} catch (Exception | Error e) {
+						busyNanos.addAndGet(System.nanoTime() - begin);
+						processed.incrementAndGet();
+						complete(new Completion<>(item, e, false));
+						continue;
+					}
+					busyNanos.addAndGet(System.nanoTime() - begin);
+					processed.incrementAndGet();
+					if (passOn && next != null) {
+						next.input.put(item);
+					} else {
+						complete(new Completion<>(item, null, false));
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private StageStatistics getStatistics(final long elapsedNanos) {
+			long count = processed.get();
+			return new StageStatistics(name, workers, count,
+					count == 0 ? 0 : (double) queueDepthSum.get() / count,
+					maxQueueDepth.get(), input.size(), elapsedNanos == 0 ? 0
+							: (double) busyNanos.get() / (elapsedNanos * workers));
+		}
+	}
+
+	private record Completion<T>(T item, Throwable failure, boolean end) {
+	}
+
+	/**
+	 * Snapshot of the statistics of a single stage.
+	 *
+	 * @param name              name of the stage
+	 * @param workers           number of threads serving the stage
+	 * @param processed         number of items processed by the stage
+	 * @param averageQueueDepth average number of items waiting in front of the
+	 *                          stage
+	 * @param maxQueueDepth     maximum number of items waiting in front of the
+	 *                          stage
+	 * @param currentQueueDepth number of items currently waiting in front of
+	 *                          the stage
+	 * @param utilisation       share of the time the workers of the stage were
+	 *                          busy, between 0 and 1
+	 */
+	public record StageStatistics(String name, int workers, long processed,
+			double averageQueueDepth, int maxQueueDepth, int currentQueueDepth,
+			double utilisation) {
+
+		@Override
+		public String toString() {
+			return String.format(
+					"Stage %s (%d worker(s)): %d processed, utilisation %.1f%%, queue depth avg %.2f / max %d / current %d",
+					name, workers, processed, utilisation * 100,
+					averageQueueDepth, maxQueueDepth, currentQueueDepth);
+		}
+	}
+}
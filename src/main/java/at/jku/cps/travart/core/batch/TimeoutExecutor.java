@@ -0,0 +1,143 @@
+package at.jku.cps.travart.core.batch;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.exception.StageTimeoutException;
+
+/**
+ * Runs transformation stages (deserialization, transformation steps,
+ * serialization) under a deadline. All stages share one executor, by default
+ * backed by virtual threads, so no platform thread is created and torn down per
+ * stage.
+ * 
+ * If a stage exceeds its deadline, it is interrupted. A stage which is still
+ * running after a short grace period ignored the interruption and is reported
+ * as hung, see {@link StageTimeoutException#isHung()}. Instances are
+ * thread-safe and may be shared by parallel transformations.
+ */
+public class TimeoutExecutor implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(TimeoutExecutor.class);
+
+	private static final String THREAD_NAME_PREFIX = "timeout-runner_";
+
+	private static final long DEFAULT_GRACE_PERIOD_MILLIS = 100;
+
+	private final ExecutorService executor;
+	private final long gracePeriodMillis;
+
+	public TimeoutExecutor() {
+		this(Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory(),
+				DEFAULT_GRACE_PERIOD_MILLIS);
+	}
+
+	/**
+	 * Creates an executor running stages on daemon platform threads, e.g., to
+	 * measure per-thread metrics which the JVM does not provide for virtual
+	 * threads, like allocated bytes.
+	 * 
+	 * @return the executor
+	 */
+	public static TimeoutExecutor onPlatformThreads() {
+		return new TimeoutExecutor(Thread.ofPlatform().daemon()
+				.name(THREAD_NAME_PREFIX, 0).factory(),
+				DEFAULT_GRACE_PERIOD_MILLIS);
+	}
+
+	/**
+	 * Creates an executor spawning a new thread from the given factory for every
+	 * stage.
+	 * 
+	 * @param factory           the factory creating the threads running the
+	 *                          stages
+	 * @param gracePeriodMillis time given to an interrupted stage to terminate
+	 *                          before it is reported as hung
+	 */
+	public TimeoutExecutor(final ThreadFactory factory,
+			final long gracePeriodMillis) {
+		this.executor = Executors.newThreadPerTaskExecutor(factory);
+		this.gracePeriodMillis = gracePeriodMillis;
+	}
+
+	/**
+	 * Runs the given stage and waits at most the given time for its result.
+	 * 
+	 * @param stage   name of the stage, used to name the executing thread
+	 * @param task    the stage to run
+	 * @param timeout the maximum time to wait
+	 * @param unit    the time unit of the timeout argument
+	 * @return the result of the stage
+	 * @throws ExecutionException    if the stage threw an exception
+	 * @throws StageTimeoutException if the stage exceeded the deadline
+	 * @throws InterruptedException  if the calling thread was interrupted while
+	 *                               waiting
+	 */
+	public <T> T call(final String stage, final Callable<T> task,
+			final long timeout, final TimeUnit unit)
+			throws ExecutionException, StageTimeoutException,
+			InterruptedException {
+		SupervisedTask<T> supervised = new SupervisedTask<>(stage, task);
+		Future<T> future = executor.submit(supervised);
+		try {
+			return future.get(timeout, unit);
+		} catch (TimeoutException e) {
+			LOGGER.debug("Timeout detected, canceling stage %s...", stage);
+			future.cancel(true);
+			boolean hung = supervised.isHung(gracePeriodMillis);
+			throw new StageTimeoutException(String.format(
+					"Stage %s exceeded timeout of %d %s%s", stage, timeout,
+					unit, hung ? " and ignored interruption" : ""), hung);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() {
+		// Do not wait for hung stages
+		executor.shutdownNow();
+	}
+
+	private static final class SupervisedTask<T> implements Callable<T> {
+
+		private final String stage;
+		private final Callable<T> task;
+		private final CountDownLatch finished = new CountDownLatch(1);
+		private volatile boolean started;
+
+		private SupervisedTask(final String stage, final Callable<T> task) {
+			this.stage = stage;
+			this.task = task;
+		}
+
+		@Override
+		public T call() throws Exception {
+			started = true;
+			Thread.currentThread().setName(THREAD_NAME_PREFIX + stage);
+			try {
+				return task.call();
+			} finally {
+				finished.countDown();
+			}
+		}
+
+		private boolean isHung(final long gracePeriodMillis)
+				throws InterruptedException {
+			return started && !finished.await(gracePeriodMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+}
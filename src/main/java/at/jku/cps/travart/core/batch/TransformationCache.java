@@ -0,0 +1,373 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * On-disk cache of transformation outputs, addressed by the content of the
+ * input model and everything else that determines the output, e.g., source and
+ * target type, strategy and the versions of the plugins used. A model which did
+ * not change since it was cached is not transformed again, its stored output
+ * and benchmark record are reused.
+ *
+ * Entries are grouped by the plugins which produced them, such that all entries
+ * of a plugin can be invalidated at once. The cache is bounded in size, the
+ * least recently used entries are evicted first. Entries are written to a
+ * temporary directory and moved in place atomically, so concurrent
+ * transformations (or processes) sharing the cache never read a partial entry.
+ */
+public class TransformationCache {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(TransformationCache.class);
+
+	// Bump if the layout of entries or the key derivation changes
+	private static final String FORMAT_VERSION = "travart-cache-1";
+	private static final String OUTPUT_FILE = "output";
+	private static final String RECORD_FILE = "record.csv";
+	private static final String TEMPORARY_PREFIX = ".tmp-";
+	private static final String NAMESPACE_SEPARATOR = "+";
+	// Other processes may still be writing younger temporary entries
+	private static final long STALE_TEMPORARY_MILLIS = 3_600_000;
+
+	private final Path directory;
+	private final long maxBytes;
+	// Entry directory -> usage, loaded once and kept up to date
+	private final Map<Path, Usage> entries = new HashMap<>();
+	private long totalBytes;
+
+	/**
+	 * A cached transformation.
+	 *
+	 * @param output the stored output of the transformation, null if the
+	 *               output was not serialized
+	 * @param record the stored benchmark record, empty if no benchmarks were
+	 *               recorded
+	 */
+	public record Entry(Path output, Map<String, String> record) {
+	}
+
+	private record Usage(long bytes, long lastUsed) {
+	}
+
+	/**
+	 * Opens the cache in the given directory, creating it if necessary.
+	 *
+	 * @param directory the directory of the cache
+	 * @param maxBytes  the size the cache is bounded to
+	 * @throws IOException if the directory cannot be created or read
+	 */
+	public TransformationCache(final Path directory, final long maxBytes)
+			throws IOException {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		Files.createDirectories(directory);
+		loadEntries();
+		LOGGER.debug(String.format("Opened cache %s with %d entries (%d bytes)",
+				directory, entries.size(), totalBytes));
+	}
+
+	/**
+	 * Computes the key of the given input model. The key covers the content of
+	 * the model and all given parameters.
+	 *
+	 * @param input      the input model
+	 * @param parameters everything else determining the output
+	 * @return the key, a hex-encoded SHA-256 hash
+	 * @throws IOException if the model cannot be read
+	 */
+	public static String computeKey(final Path input,
+			final List<String> parameters) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+		digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+		for (String parameter : parameters) {
+			// Separate parameters, such that ("ab", "c") != ("a", "bc")
+			digest.update((byte) 0);
+			digest.update(parameter.getBytes(StandardCharsets.UTF_8));
+		}
+		digest.update((byte) 0);
+		byte[] buffer = new byte[8192];
+		try (InputStream in = Files.newInputStream(input)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * Returns the name of the group of entries produced by the given plugins.
+	 *
+	 * @param pluginIds the IDs of the plugins, in order of use
+	 * @return the name of the group
+	 */
+	public static String namespace(final List<String> pluginIds) {
+		if (pluginIds.isEmpty()) {
+			return "core";
+		}
+		List<String> sanitized = new ArrayList<>();
+		for (String id : pluginIds) {
+			sanitized.add(id.replaceAll("[^A-Za-z0-9._-]", "_"));
+		}
+		return String.join(NAMESPACE_SEPARATOR, sanitized);
+	}
+
+	/**
+	 * Looks up the entry with the given key and marks it as recently used.
+	 *
+	 * @param namespace the group of the entry, see {@link #namespace(List)}
+	 * @param key       the key of the entry, see {@link #computeKey(Path, List)}
+	 * @return the entry, or empty if the model was not cached
+	 */
+	public Optional<Entry> lookup(final String namespace, final String key) {
+		Path entry = directory.resolve(namespace).resolve(key);
+		Path recordFile = entry.resolve(RECORD_FILE);
+		if (!Files.isRegularFile(recordFile)) {
+			return Optional.empty();
+		}
+		try {
+			Map<String, String> record = readRecord(recordFile);
+			Path output = entry.resolve(OUTPUT_FILE);
+			long now = System.currentTimeMillis();
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(now));
+			synchronized (this) {
+				Usage usage = entries.get(entry);
+				if (usage != null) {
+					entries.put(entry, new Usage(usage.bytes(), now));
+				}
+			}
+			return Optional.of(new Entry(
+					Files.isRegularFile(output) ? output : null, record));
+		} catch (IOException | RuntimeException e) {
+			// Evicted concurrently or damaged, transform again
+			LOGGER.debug(String.format("Unable to read cache entry %s: %s",
+					entry, e.getMessage()));
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Stores the output and benchmark record of a transformation. Evicts the
+	 * least recently used entries if the cache exceeds its size.
+	 *
+	 * @param namespace the group of the entry, see {@link #namespace(List)}
+	 * @param key       the key of the entry, see {@link #computeKey(Path, List)}
+	 * @param output    the output of the transformation, may be null
+	 * @param record    the benchmark record of the transformation
+	 * @throws IOException if the entry cannot be written
+	 */
+	public void store(final String namespace, final String key,
+			final Path output, final Map<String, ?> record)
+			throws IOException {
+		Path group = directory.resolve(namespace);
+		Files.createDirectories(group);
+		Path temporary = group
+				.resolve(TEMPORARY_PREFIX + key + "-" + UUID.randomUUID());
+		Path entry = group.resolve(key);
+		Files.createDirectory(temporary);
+		try {
+			if (output != null) {
+				Files.copy(output, temporary.resolve(OUTPUT_FILE));
+			}
+			writeRecord(temporary.resolve(RECORD_FILE), record);
+			long bytes = sizeOf(temporary);
+			try {
+				Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// Stored concurrently by another transformation
+				LOGGER.debug(String.format("Cache entry %s exists already",
+						entry));
+				return;
+			}
+			synchronized (this) {
+				Usage previous = entries.put(entry,
+						new Usage(bytes, System.currentTimeMillis()));
+				totalBytes += bytes
+						- (previous == null ? 0 : previous.bytes());
+				evict();
+			}
+		} finally {
+			if (Files.exists(temporary)) {
+				delete(temporary);
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries produced with the given plugin.
+	 *
+	 * @param pluginId the ID of the plugin
+	 * @return the number of removed entries
+	 * @throws IOException if the cache cannot be read
+	 */
+	public synchronized int invalidate(final String pluginId)
+			throws IOException {
+		String sanitized = namespace(List.of(pluginId));
+		int removed = 0;
+		try (DirectoryStream<Path> groups = Files
+				.newDirectoryStream(directory, Files::isDirectory)) {
+			for (Path group : groups) {
+				List<String> ids = List.of(group.getFileName().toString()
+						.split(Pattern.quote(NAMESPACE_SEPARATOR)));
+				if (!ids.contains(sanitized)) {
+					continue;
+				}
+				// Count on disk, other processes may have added entries
+				try (DirectoryStream<Path> keys = Files.newDirectoryStream(group,
+						k -> !k.getFileName().toString()
+								.startsWith(TEMPORARY_PREFIX))) {
+					for (Path key : keys) {
+						removed++;
+					}
+				}
+				for (Path entry : new ArrayList<>(entries.keySet())) {
+					if (entry.getParent().equals(group)) {
+						totalBytes -= entries.remove(entry).bytes();
+					}
+				}
+				delete(group);
+			}
+		}
+		LOGGER.debug(String.format("Invalidated %d cache entries of plugin %s",
+				removed, pluginId));
+		return removed;
+	}
+
+	private void evict() {
+		if (totalBytes <= maxBytes) {
+			return;
+		}
+		List<Map.Entry<Path, Usage>> byAge = new ArrayList<>(
+				entries.entrySet());
+		byAge.sort(Comparator.comparingLong(e -> e.getValue().lastUsed()));
+		for (Map.Entry<Path, Usage> oldest : byAge) {
+			if (totalBytes <= maxBytes) {
+				break;
+			}
+			try {
+				delete(oldest.getKey());
+			} catch (IOException e) {
+				LOGGER.warn(String.format("Unable to evict cache entry %s: %s",
+						oldest.getKey(), e.getMessage()));
+				continue;
+			}
+			entries.remove(oldest.getKey());
+			totalBytes -= oldest.getValue().bytes();
+		}
+	}
+
+	private void loadEntries() throws IOException {
+		try (DirectoryStream<Path> groups = Files
+				.newDirectoryStream(directory, Files::isDirectory)) {
+			for (Path group : groups) {
+				try (DirectoryStream<Path> keys = Files
+						.newDirectoryStream(group, Files::isDirectory)) {
+					for (Path entry : keys) {
+						if (entry.getFileName().toString()
+								.startsWith(TEMPORARY_PREFIX)) {
+							if (Files.getLastModifiedTime(entry)
+									.toMillis() < System.currentTimeMillis()
+											- STALE_TEMPORARY_MILLIS) {
+								// Left behind by a killed process
+								delete(entry);
+							}
+							continue;
+						}
+						long bytes = sizeOf(entry);
+						entries.put(entry, new Usage(bytes, Files
+								.getLastModifiedTime(entry).toMillis()));
+						totalBytes += bytes;
+					}
+				}
+			}
+		}
+	}
+
+	private static Map<String, String> readRecord(final Path recordFile)
+			throws IOException {
+		Map<String, String> record = new LinkedHashMap<>();
+		try (Reader reader = Files.newBufferedReader(recordFile);
+				CSVParser parser = CSVFormat.DEFAULT.builder().setHeader()
+						.setSkipHeaderRecord(true).get().parse(reader)) {
+			for (CSVRecord values : parser) {
+				record.putAll(values.toMap());
+			}
+		}
+		return record;
+	}
+
+	private static void writeRecord(final Path recordFile,
+			final Map<String, ?> record) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(recordFile);
+				CSVPrinter printer = new CSVPrinter(writer,
+						CSVFormat.DEFAULT.builder()
+								.setHeader(record.keySet()
+										.toArray(String[]::new))
+								.get())) {
+			printer.printRecord(record.values());
+		}
+	}
+
+	private static long sizeOf(final Path entry) throws IOException {
+		try (Stream<Path> files = Files.walk(entry)) {
+			return files.filter(Files::isRegularFile).mapToLong(file -> {
+				try {
+					return Files.size(file);
+				} catch (IOException e) {
+					return 0;
+				}
+			}).sum();
+		}
+	}
+
+	private static void delete(final Path path) throws IOException {
+		try (Stream<Path> files = Files.walk(path)) {
+			for (Path file : files.sorted(Comparator.reverseOrder())
+					.toList()) {
+				try {
+					Files.delete(file);
+				} catch (NoSuchFileException e) {
+					// Removed concurrently
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// Removed concurrently
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.exception.TransformationException;
+
+/**
+ * Transforms a folder once, then the models changed since the
+ * {@link DirectoryWatcher} was created, until a batch fails or the watcher is
+ * closed.
+ *
+ * On shutdown, e.g., by Ctrl+C, the watcher is closed and the shutdown waits
+ * until the given latch is released, i.e., the results of the current batch
+ * were written, but at most for the given timeout.
+ */
+public class WatchLoop {
+
+	private static final Logger LOGGER = LogManager.getLogger(WatchLoop.class);
+
+	/**
+	 * Transforms all models of the folder.
+	 */
+	@FunctionalInterface
+	public interface InitialPass {
+		/**
+		 * Transforms all models of the folder.
+		 *
+		 * @return the exit code of the batch
+		 * @throws IOException                         if a model cannot be read
+		 *                                             or written
+		 * @throws NotSupportedVariabilityTypeException if a model cannot be
+		 *                                             transformed
+		 * @throws TransformationException             if the batch was aborted
+		 */
+		int run() throws IOException, NotSupportedVariabilityTypeException,
+				TransformationException;
+	}
+
+	/**
+	 * Transforms the models which changed.
+	 */
+	@FunctionalInterface
+	public interface ChangedModels {
+		/**
+		 * Transforms the given models.
+		 *
+		 * @param changed the changed models, sorted by path
+		 * @return the exit code of the batch
+		 * @throws IOException                         if a model cannot be read
+		 *                                             or written
+		 * @throws NotSupportedVariabilityTypeException if a model cannot be
+		 *                                             transformed
+		 * @throws TransformationException             if the batch was aborted
+		 */
+		int run(SortedSet<Path> changed) throws IOException,
+				NotSupportedVariabilityTypeException, TransformationException;
+	}
+
+	/**
+	 * Called after every successful batch, before waiting for changes.
+	 */
+	@FunctionalInterface
+	public interface BeforeWaiting {
+		/**
+		 * Called after every successful batch, e.g., to flush its results.
+		 *
+		 * @throws IOException if the results cannot be written
+		 */
+		void run() throws IOException;
+	}
+
+	private final DirectoryWatcher watcher;
+	private final CountDownLatch finished;
+	private final long shutdownTimeoutSeconds;
+
+	/**
+	 * Creates a loop on the given watcher, which is closed once the loop ends.
+	 *
+	 * @param watcher                the watcher of the folder
+	 * @param finished               released once the results of the current
+	 *                               batch were written
+	 * @param shutdownTimeoutSeconds the maximum time in seconds the shutdown
+	 *                               waits for the current batch
+	 */
+	public WatchLoop(final DirectoryWatcher watcher,
+			final CountDownLatch finished, final long shutdownTimeoutSeconds) {
+		this.watcher = watcher;
+		this.finished = finished;
+		this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+	}
+
+	/**
+	 * Runs the initial pass, then transforms changed models until a batch
+	 * fails or the watcher is closed.
+	 *
+	 * @param initial       transforms all models of the folder
+	 * @param beforeWaiting called after every successful batch, before
+	 *                      waiting for changes
+	 * @param changedModels transforms the changed models
+	 * @return the exit code of the last batch
+	 * @throws IOException                         if a model cannot be read or
+	 *                                             written
+	 * @throws NotSupportedVariabilityTypeException if a model cannot be
+	 *                                             transformed
+	 * @throws TransformationException             if a batch was aborted or
+	 *                                             waiting was interrupted
+	 */
+	public int run(final InitialPass initial, final BeforeWaiting beforeWaiting,
+			final ChangedModels changedModels) throws IOException,
+			NotSupportedVariabilityTypeException, TransformationException {
+		Thread shutdown = new Thread(() -> {
+			try {
+				watcher.close();
+				// Let the current batch finish writing its results, at most
+				// as long as a single stage may take
+				if (!finished.await(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+					LOGGER.warn(
+							"Stopped watching before the current batch finished!");
+				}
+			} catch (IOException e) {
+				LOGGER.warn("Unable to stop watching: " + e.getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "watch-shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdown);
+		try {
+			int result = initial.run();
+			while (result == 0) {
+				beforeWaiting.run();
+				Set<Path> changed = watcher.awaitChanges();
+				if (changed.isEmpty()) {
+					// Closed on shutdown
+					break;
+				}
+				result = changedModels.run(new TreeSet<>(changed));
+			}
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TransformationException(e);
+		} finally {
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdown);
+			} catch (IllegalStateException e) {
+				// Already shutting down, the hook closes the watcher
+			}
+			watcher.close();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The {@link WorkerProcess}es of the isolation mode, one per dispatching
+ * thread. A thread reuses its worker for all of its models until the worker
+ * died or was discarded, e.g., because it might be stuck with a hung thread.
+ * Instances are thread-safe.
+ */
+public class WorkerPool implements AutoCloseable {
+
+	private final Class<?> mainClass;
+	private final List<String> args;
+	private final long startupTimeout;
+	// Worker of each dispatcher thread
+	private final ThreadLocal<WorkerProcess> current = new ThreadLocal<>();
+	private final Queue<WorkerProcess> started = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Creates a pool starting its workers as given, see
+	 * {@link WorkerProcess#start(Class, List, long)}.
+	 *
+	 * @param mainClass      the main class of the workers
+	 * @param args           the arguments passed to the main class
+	 * @param startupTimeout time in seconds a worker may take to start
+	 */
+	public WorkerPool(final Class<?> mainClass, final List<String> args,
+			final long startupTimeout) {
+		this.mainClass = mainClass;
+		this.args = List.copyOf(args);
+		this.startupTimeout = startupTimeout;
+	}
+
+	/**
+	 * Returns the worker of the current thread, started if the thread has no
+	 * living worker.
+	 *
+	 * @return the worker of the current thread
+	 * @throws IOException      if the worker cannot be started
+	 * @throws TimeoutException if the worker did not start in time
+	 */
+	public WorkerProcess acquire() throws IOException, TimeoutException {
+		WorkerProcess worker = current.get();
+		if (Objects.nonNull(worker) && worker.isAlive()) {
+			return worker;
+		}
+		discard(worker);
+		worker = WorkerProcess.start(mainClass, args, startupTimeout);
+		current.set(worker);
+		started.add(worker);
+		return worker;
+	}
+
+	/**
+	 * Kills the given worker of the current thread, the next call of
+	 * {@link #acquire()} starts a new one.
+	 *
+	 * @param worker the worker to discard, may be null
+	 */
+	public void discard(final WorkerProcess worker) {
+		if (Objects.nonNull(worker)) {
+			worker.close();
+			started.remove(worker);
+		}
+		current.remove();
+	}
+
+	/**
+	 * Kills all workers started by this pool.
+	 */
+	@Override
+	public void close() {
+		started.forEach(WorkerProcess::close);
+	}
+}
@@ -0,0 +1,261 @@
+package at.jku.cps.travart.core.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A forked JVM transforming models on behalf of a parent process. The parent
+ * sends one model path per line over the standard input of the worker, the
+ * worker answers on its standard output with the benchmark records of the
+ * model followed by its exit code. All other output of the worker is forwarded
+ * to the standard output of the parent.
+ *
+ * A worker is reused for many models, such that JVM and plugin startup are
+ * paid once. If a model exceeds its deadline, the parent kills the worker and
+ * spawns a new one, such that a hung plugin only costs a single model.
+ */
+public class WorkerProcess implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(WorkerProcess.class);
+
+	private static final String PREFIX = "@travart:";
+	private static final String READY = PREFIX + "ready";
+	private static final String RECORD = PREFIX + "record ";
+	private static final String DONE = PREFIX + "done ";
+	// Marker for the end of the output stream of the worker
+	private static final String EOF = PREFIX + "eof";
+
+	private final Process process;
+	private final Writer input;
+	private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+	/**
+	 * Reply of a worker for a single model.
+	 *
+	 * @param exitCode the exit code of the transformation of the model
+	 * @param records  the benchmark records reported for the model
+	 */
+	public record Reply(int exitCode, List<Map<String, String>> records) {
+	}
+
+	private WorkerProcess(final Process process) {
+		this.process = process;
+		this.input = process.outputWriter(StandardCharsets.UTF_8);
+		Thread reader = new Thread(this::readOutput,
+				"worker-process-reader_" + process.pid());
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Forks a new JVM with the classpath of the current JVM, running the given
+	 * main class with the given arguments. Waits until the worker reports to be
+	 * ready.
+	 *
+	 * @param mainClass      the main class of the worker
+	 * @param args           the arguments passed to the main class
+	 * @param startupTimeout time in seconds the worker may take to start
+	 * @return the started worker
+	 * @throws IOException      if the worker could not be started or died
+	 * @throws TimeoutException if the worker did not get ready in time
+	 */
+	public static WorkerProcess start(final Class<?> mainClass,
+			final List<String> args, final long startupTimeout)
+			throws IOException, TimeoutException {
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java")
+				.toString());
+		// Pass on heap settings, system properties etc., but never a debugger
+		ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+				.filter(arg -> !arg.startsWith("-agentlib:jdwp"))
+				.forEach(command::add);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(mainClass.getName());
+		command.addAll(args);
+		LOGGER.debug("Starting worker process: %s", command);
+		Process process = new ProcessBuilder(command)
+				.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		WorkerProcess worker = new WorkerProcess(process);
+		try {
+			String line = worker.replies.poll(startupTimeout,
+					TimeUnit.SECONDS);
+			if (Objects.isNull(line)) {
+				worker.close();
+				throw new TimeoutException(
+						"Worker process did not start in time!");
+			}
+			if (!READY.equals(line)) {
+				worker.close();
+				throw new IOException(
+						"Worker process terminated during startup!");
+			}
+		} catch (InterruptedException e) {
+			worker.close();
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		LOGGER.debug("Worker process %d is ready", process.pid());
+		return worker;
+	}
+
+	/**
+	 * Lets the worker transform the given model and waits for its reply.
+	 *
+	 * @param file    the model to transform
+	 * @param timeout the time in milliseconds the worker may take
+	 * @return the reply of the worker
+	 * @throws IOException          if the worker died
+	 * @throws TimeoutException     if the worker did not reply in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Reply transform(final Path file, final long timeout)
+			throws IOException, TimeoutException, InterruptedException {
+		input.write(file.toAbsolutePath() + System.lineSeparator());
+		input.flush();
+		long deadline = System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(timeout);
+		List<Map<String, String>> records = new ArrayList<>();
+		while (true) {
+			String line = replies.poll(deadline - System.nanoTime(),
+					TimeUnit.NANOSECONDS);
+			if (Objects.isNull(line)) {
+				throw new TimeoutException("Worker process " + process.pid()
+						+ " did not finish " + file.getFileName() + " in time!");
+			} else if (EOF.equals(line)) {
+				throw new IOException("Worker process " + process.pid()
+						+ " terminated while transforming "
+						+ file.getFileName() + "!");
+			} else if (line.startsWith(RECORD)) {
+				records.add(decodeRecord(line.substring(RECORD.length())));
+			} else if (line.startsWith(DONE)) {
+				return new Reply(
+						Integer.parseInt(line.substring(DONE.length()).trim()),
+						records);
+			}
+		}
+	}
+
+	public boolean isAlive() {
+		return process.isAlive();
+	}
+
+	/**
+	 * Kills the worker process and waits for its termination.
+	 */
+	@Override
+	public void close() {
+		process.destroyForcibly();
+		try {
+			process.waitFor(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void readOutput() {
+		try (BufferedReader reader = process
+				.inputReader(StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				// Output of the worker without line break precedes the reply
+				int reply = line.indexOf(PREFIX);
+				if (reply > 0) {
+					System.out.println(line.substring(0, reply));
+				}
+				if (reply >= 0) {
+					replies.add(line.substring(reply));
+				} else {
+					System.out.println(line);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.debug("Output of worker process %d closed: %s",
+					process.pid(), e.getMessage());
+		}
+		replies.add(EOF);
+	}
+
+	/**
+	 * Announces on the given stream that a worker is ready to accept models.
+	 * Called by the worker.
+	 *
+	 * @param out the standard output of the worker
+	 */
+	public static void reportReady(final PrintStream out) {
+		synchronized (out) {
+			out.println(READY);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Reports a benchmark record to the parent. Called by the worker.
+	 *
+	 * @param out    the standard output of the worker
+	 * @param record the record to report
+	 * @throws IOException if the record cannot be encoded
+	 */
+	public static void reportRecord(final PrintStream out,
+			final Map<String, Object> record) throws IOException {
+		StringBuilder encoded = new StringBuilder();
+		try (CSVPrinter printer = new CSVPrinter(encoded,
+				CSVFormat.DEFAULT.builder().setRecordSeparator("").get())) {
+			for (Map.Entry<String, Object> column : record.entrySet()) {
+				printer.print(column.getKey());
+				printer.print(column.getValue());
+			}
+		}
+		synchronized (out) {
+			out.println(RECORD + encoded);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Reports the exit code of a model to the parent. Called by the worker.
+	 *
+	 * @param out      the standard output of the worker
+	 * @param exitCode the exit code of the transformation
+	 */
+	public static void reportDone(final PrintStream out, final int exitCode) {
+		synchronized (out) {
+			out.println(DONE + exitCode);
+			out.flush();
+		}
+	}
+
+	private static Map<String, String> decodeRecord(final String encoded)
+			throws IOException {
+		Map<String, String> record = new LinkedHashMap<>();
+		for (CSVRecord columns : CSVFormat.DEFAULT
+				.parse(new StringReader(encoded))) {
+			for (int i = 0; i + 1 < columns.size(); i += 2) {
+				record.put(columns.get(i), columns.get(i + 1));
+			}
+		}
+		return record;
+	}
+}
@@ -0,0 +1,67 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.auto.service.AutoService;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Reports the bytes allocated while deserializing, transforming (all steps)
+ * and serializing a model, in total and per feature, based on the
+ * {@link AllocationEvent}s of the CLI. Features are counted in the UVL models
+ * of the transformation, the largest count is used. Stages whose allocations
+ * cannot be measured report -1.
+ */
+@AutoService(IBenchmark.class)
+@SuppressWarnings("rawtypes")
+public class AllocationBenchmark extends AbstractBenchmark<Number> {
+
+	private final Map<Phase, Long> allocated = new EnumMap<>(Phase.class);
+	private int features;
+
+	@Subscribe
+	private void endOfStage(AllocationEvent event) {
+		features = Math.max(features, event.features);
+		Long total = allocated.get(event.phase);
+		if (event.allocatedBytes < 0 || (total != null && total < 0)) {
+			allocated.put(event.phase, -1L);
+		} else {
+			allocated.merge(event.phase, event.allocatedBytes, Long::sum);
+		}
+	}
+
+	@Override
+	public List<Number> getResults() {
+		long deserialization = allocated.getOrDefault(Phase.DESERIALIZATION,
+				0L);
+		long transformation = allocated.getOrDefault(Phase.TRANSFORMATION, 0L);
+		long serialization = allocated.getOrDefault(Phase.SERIALIZATION, 0L);
+		return List.of(deserialization, transformation, serialization,
+				perFeature(deserialization), perFeature(transformation),
+				perFeature(serialization));
+	}
+
+	private double perFeature(final long bytes) {
+		if (bytes < 0) {
+			return -1;
+		}
+		return features > 0 ? (double) bytes / features : Double.NaN;
+	}
+
+	@Override
+	public List<String> getResultsHeader() {
+		return List.of("deserializationAllocatedBytes",
+				"transformationAllocatedBytes", "serializationAllocatedBytes",
+				"deserializationBytesPerFeature",
+				"transformationBytesPerFeature",
+				"serializationBytesPerFeature");
+	}
+
+	@Override
+	public String getId() {
+		return "allocation";
+	}
+
+}
@@ -0,0 +1,34 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.time.Instant;
+
+/**
+ * Emitted by the CLI after a stage of the transformation of a model, if a
+ * benchmark listens to it. Measuring allocations requires the stages to run on
+ * platform threads, which the CLI does for the whole session in that case.
+ * 
+ * This event has custom "phase", "step", "allocatedBytes" and "features"
+ * fields. The step is the 1-based index of the transformation step for
+ * {@link Phase#TRANSFORMATION}, and 0 otherwise. The allocated bytes are taken
+ * from the executing thread, see
+ * {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}, and
+ * are -1 if the JVM does not support measuring them. The features are counted
+ * in the output of the stage if it is a feature model, and are -1 otherwise.
+ */
+public class AllocationEvent extends AbstractBenchmarkEvent {
+
+	public final Phase phase;
+	public final int step;
+	public final long allocatedBytes;
+	public final int features;
+
+	public AllocationEvent(Instant time, String msg, int ctx, Phase phase,
+			int step, long allocatedBytes, int features) {
+		super(time, msg, ctx);
+		this.phase = phase;
+		this.step = step;
+		this.allocatedBytes = allocatedBytes;
+		this.features = features;
+	}
+
+}
@@ -0,0 +1,294 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Drop-in replacement of the Guava {@link EventBus} for benchmarking events,
+ * which dispatches with near-zero overhead such that benchmarks do not perturb
+ * the transformations they measure.
+ *
+ * The {@link Subscribe} methods of a class are looked up once and bound to
+ * method handles when an object is registered. The listeners of each event
+ * type are resolved on the first post of that type and cached until the next
+ * (un-)registration, so posting an event is a map lookup and a direct call of
+ * each listener. Listeners can also be subscribed without reflection, see
+ * {@link #subscribe(Class, Consumer)}, and emitters can skip creating events
+ * nobody listens to, see {@link #isListening(EventBus, Class)}.
+ *
+ * Unlike the Guava bus, listeners are called directly on the posting thread,
+ * i.e., events posted by a listener are dispatched before the remaining
+ * listeners of the current event, and calls of a listener are not
+ * synchronized. The events of a single transformation are posted one after
+ * another, so benchmarks do not need to synchronize either. Exceptions thrown
+ * by listeners are logged and do not abort the transformation, as with the
+ * Guava bus. No DeadEvents are posted.
+ */
+public class BenchmarkEventBus extends EventBus {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(BenchmarkEventBus.class);
+
+	private static final MethodType LISTENER_TYPE = MethodType
+			.methodType(void.class, Object.class);
+
+	private static final MethodHandle CONSUMER_ACCEPT;
+
+	static {
+		try {
+			CONSUMER_ACCEPT = MethodHandles.publicLookup()
+					.findVirtual(Consumer.class, "accept", LISTENER_TYPE);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// Subscribe methods of each class, looked up once
+	private static final ClassValue<List<Method>> SUBSCRIBERS = new ClassValue<>() {
+		@Override
+		protected List<Method> computeValue(final Class<?> type) {
+			return findSubscribers(type);
+		}
+	};
+
+	private static final Listener[] NO_LISTENERS = {};
+
+	/*
+	 * A listener of events of the given type. The owner is the registered
+	 * object, which is used to unregister it again.
+	 */
+	private record Listener(Object owner, Class<?> eventType,
+			MethodHandle handle) {
+
+		void accept(final Object event) throws Throwable {
+			handle.invokeExact(event);
+		}
+	}
+
+	/*
+	 * Immutable set of listeners, replaced on every (un-)registration, which
+	 * caches the listeners of each posted event type.
+	 */
+	private static final class Registry {
+
+		private final Listener[] listeners;
+		private final Map<Class<?>, Listener[]> byEventType = new ConcurrentHashMap<>();
+
+		private Registry(final Listener[] listeners) {
+			this.listeners = listeners;
+		}
+
+		private Listener[] listenersOf(final Class<?> eventType) {
+			Listener[] matching = byEventType.get(eventType);
+			if (matching == null) {
+				matching = Arrays.stream(listeners)
+						.filter(l -> l.eventType().isAssignableFrom(eventType))
+						.toArray(Listener[]::new);
+				if (matching.length == 0) {
+					matching = NO_LISTENERS;
+				}
+				byEventType.putIfAbsent(eventType, matching);
+			}
+			return matching;
+		}
+	}
+
+	private volatile Registry registry = new Registry(NO_LISTENERS);
+
+	public BenchmarkEventBus() {
+		super();
+	}
+
+	public BenchmarkEventBus(final String identifier) {
+		super(identifier);
+	}
+
+	/**
+	 * Registers all {@link Subscribe} methods of the given object. Methods may
+	 * be private and must have exactly one parameter, the type of events they
+	 * receive.
+	 *
+	 * @param object the object whose subscribe methods should be registered
+	 * @throws IllegalArgumentException if a subscribe method has not exactly
+	 *                                  one parameter of reference type
+	 */
+	@Override
+	public void register(final Object object) {
+		List<Listener> added = new ArrayList<>();
+		for (Method method : SUBSCRIBERS.get(object.getClass())) {
+			added.add(new Listener(object, method.getParameterTypes()[0],
+					bind(method, object)));
+		}
+		addListeners(added);
+	}
+
+	/**
+	 * Subscribes the given listener to events of the given type and its
+	 * subtypes, without reflection. Unregister it by passing the listener to
+	 * {@link #unregister(Object)}.
+	 *
+	 * @param <E>       the type of events
+	 * @param eventType the type of events
+	 * @param listener  the listener
+	 */
+	public <E> void subscribe(final Class<E> eventType,
+			final Consumer<? super E> listener) {
+		Objects.requireNonNull(eventType);
+		MethodHandle handle = CONSUMER_ACCEPT.bindTo(listener)
+				.asType(LISTENER_TYPE);
+		addListeners(List.of(new Listener(listener, eventType, handle)));
+	}
+
+	/**
+	 * Unregisters all listeners of the given object, i.e., its subscribe
+	 * methods or the given listener of {@link #subscribe(Class, Consumer)}.
+	 *
+	 * @param object the registered object or listener
+	 * @throws IllegalArgumentException if the object was not registered
+	 */
+	@Override
+	public synchronized void unregister(final Object object) {
+		Listener[] listeners = registry.listeners;
+		Listener[] remaining = Arrays.stream(listeners)
+				.filter(l -> l.owner() != object).toArray(Listener[]::new);
+		if (remaining.length == listeners.length) {
+			throw new IllegalArgumentException(
+					"Missing event subscriber for " + object
+							+ ". Is it registered?");
+		}
+		registry = new Registry(remaining);
+	}
+
+	/**
+	 * Posts the given event to all listeners of its type or a supertype.
+	 *
+	 * @param event the event
+	 */
+	@Override
+	public void post(final Object event) {
+		for (Listener listener : registry.listenersOf(event.getClass())) {
+			try {
+				listener.accept(event);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				LOGGER.error(String.format(
+						"Listener %s of %s failed on %s, ignoring it...",
+						listener.owner().getClass().getName(), identifier(),
+						event.getClass().getSimpleName()), e);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether any listener receives events of the given type.
+	 *
+	 * @param eventType the type of events
+	 * @return true if events of the type would be dispatched to a listener
+	 */
+	public boolean hasListeners(final Class<?> eventType) {
+		return registry.listenersOf(eventType).length != 0;
+	}
+
+	/**
+	 * Checks whether events of the given type should be created and posted to
+	 * the given bus, e.g., to avoid allocating events on hot paths of
+	 * transformers. Other buses than a {@link BenchmarkEventBus} are assumed to
+	 * be listening.
+	 *
+	 * @param bus       the bus, may be null
+	 * @param eventType the type of events
+	 * @return false if the bus is null or nobody listens to the events
+	 */
+	public static boolean isListening(final EventBus bus,
+			final Class<?> eventType) {
+		if (bus instanceof BenchmarkEventBus benchmarkBus) {
+			return benchmarkBus.hasListeners(eventType);
+		}
+		return Objects.nonNull(bus);
+	}
+
+	private synchronized void addListeners(final List<Listener> added) {
+		if (added.isEmpty()) {
+			return;
+		}
+		Listener[] listeners = registry.listeners;
+		Listener[] extended = Arrays.copyOf(listeners,
+				listeners.length + added.size());
+		for (int i = 0; i < added.size(); i++) {
+			extended[listeners.length + i] = added.get(i);
+		}
+		registry = new Registry(extended);
+	}
+
+	private static MethodHandle bind(final Method method, final Object object) {
+		try {
+			method.setAccessible(true);
+			return MethodHandles.lookup().unreflect(method).bindTo(object)
+					.asType(LISTENER_TYPE);
+		} catch (IllegalAccessException | RuntimeException e) {
+			throw new IllegalArgumentException(
+					"Cannot access subscribe method " + method, e);
+		}
+	}
+
+	// Subscribe methods of the type and its supertypes, overridden methods
+	// are only returned once
+	private static List<Method> findSubscribers(final Class<?> type) {
+		List<Method> subscribers = new ArrayList<>();
+		Set<String> signatures = new HashSet<>();
+		Deque<Class<?>> pending = new ArrayDeque<>();
+		Set<Class<?>> visited = new HashSet<>();
+		pending.add(type);
+		while (!pending.isEmpty()) {
+			Class<?> current = pending.poll();
+			if (!visited.add(current)) {
+				continue;
+			}
+			for (Method method : current.getDeclaredMethods()) {
+				if (!method.isAnnotationPresent(Subscribe.class)
+						|| method.isSynthetic()) {
+					continue;
+				}
+				Class<?>[] parameters = method.getParameterTypes();
+				if (parameters.length != 1 || parameters[0].isPrimitive()
+						|| Modifier.isStatic(method.getModifiers())) {
+					throw new IllegalArgumentException(String.format(
+							"Method %s has @Subscribe annotation but is static or has %d parameters, subscriber methods must have exactly one parameter of reference type.",
+							method, parameters.length));
+				}
+				String signature = method.getName() + parameters[0].getName();
+				// Private methods cannot be overridden
+				if (Modifier.isPrivate(method.getModifiers())
+						|| signatures.add(signature)) {
+					subscribers.add(method);
+				}
+			}
+			if (Objects.nonNull(current.getSuperclass())) {
+				pending.add(current.getSuperclass());
+			}
+			pending.addAll(Arrays.asList(current.getInterfaces()));
+		}
+		return List.copyOf(subscribers);
+	}
+}
@@ -0,0 +1,149 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Known benchmarks, discovered once over the {@link ServiceLoader}. Benchmarks
+ * are stateful and must not be shared between transformed models, so the
+ * registry hands out a {@link BenchmarkFactory} per benchmark which cheaply
+ * creates fresh instances, e.g., for every model or worker thread.
+ *
+ * A registry is immutable and may be shared by parallel transformations.
+ */
+@SuppressWarnings("rawtypes")
+public final class BenchmarkRegistry {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(BenchmarkRegistry.class);
+
+	private final Map<String, BenchmarkFactory> factories;
+
+	/**
+	 * Creates fresh instances of a single benchmark.
+	 *
+	 * @param id            the ID of the benchmark
+	 * @param resultsHeader the columns of the results of the benchmark
+	 * @param supplier      creates a new instance of the benchmark
+	 */
+	public record BenchmarkFactory(String id, List<String> resultsHeader,
+			Supplier<IBenchmark> supplier) {
+
+		public IBenchmark create() {
+			return supplier.get();
+		}
+	}
+
+	private BenchmarkRegistry(final Map<String, BenchmarkFactory> factories) {
+		this.factories = Collections.unmodifiableMap(factories);
+	}
+
+	/**
+	 * Discovers all benchmarks registered for the {@link ServiceLoader}. Every
+	 * benchmark is instantiated once to obtain its ID.
+	 *
+	 * @return the registry of all known benchmarks
+	 */
+	@SuppressWarnings("unchecked")
+	public static BenchmarkRegistry load() {
+		Map<String, BenchmarkFactory> factories = new TreeMap<>();
+		ServiceLoader.load(IBenchmark.class).stream().forEach(provider -> {
+			IBenchmark prototype = provider.get();
+			Supplier<IBenchmark> supplier = constructorOf(provider.type())
+					.orElse(provider::get);
+			BenchmarkFactory factory = new BenchmarkFactory(prototype.getId(),
+					List.copyOf(prototype.getResultsHeader()), supplier);
+			if (factories.putIfAbsent(factory.id(), factory) != null) {
+				LOGGER.warn(String.format(
+						"Benchmark ID %s is used twice, ignoring %s...",
+						factory.id(), provider.type().getName()));
+			}
+		});
+		LOGGER.debug(String.format("Number of known benchmarks: %d",
+				factories.size()));
+		return new BenchmarkRegistry(factories);
+	}
+
+	/**
+	 * Returns the IDs of all known benchmarks, sorted.
+	 *
+	 * @return the IDs of the benchmarks
+	 */
+	public List<String> getIds() {
+		return List.copyOf(factories.keySet());
+	}
+
+	/**
+	 * Returns the factories of the benchmarks with the given IDs, sorted by ID.
+	 * Unknown IDs are reported and ignored.
+	 *
+	 * @param ids the IDs of the benchmarks
+	 * @return the factories of the selected benchmarks
+	 */
+	public List<BenchmarkFactory> select(final Collection<String> ids) {
+		List<BenchmarkFactory> selected = new ArrayList<>();
+		for (String id : ids) {
+			BenchmarkFactory factory = factories.get(id);
+			if (factory == null) {
+				LOGGER.warn(String.format(
+						"Unknown benchmark %s, known benchmarks are %s", id,
+						factories.keySet()));
+			} else if (!selected.contains(factory)) {
+				LOGGER.debug("Matched benchmark " + id);
+				selected.add(factory);
+			}
+		}
+		selected.sort((f1, f2) -> f1.id().compareTo(f2.id()));
+		return Collections.unmodifiableList(selected);
+	}
+
+	/**
+	 * Creates fresh instances of the given benchmarks, in the given order.
+	 *
+	 * @param selected the factories of the benchmarks
+	 * @return new instances of the benchmarks
+	 */
+	public static List<IBenchmark> createAll(
+			final List<BenchmarkFactory> selected) {
+		List<IBenchmark> benchmarks = new ArrayList<>(selected.size());
+		for (BenchmarkFactory factory : selected) {
+			benchmarks.add(factory.create());
+		}
+		return benchmarks;
+	}
+
+	// Resolves the public no-arg constructor once instead of reflecting on
+	// every instantiation
+	private static Optional<Supplier<IBenchmark>> constructorOf(
+			final Class<? extends IBenchmark> type) {
+		try {
+			MethodHandle constructor = MethodHandles.publicLookup()
+					.findConstructor(type, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(IBenchmark.class));
+			return Optional.of(() -> {
+				try {
+					return (IBenchmark) constructor.invokeExact();
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return Optional.empty();
+		}
+	}
+}
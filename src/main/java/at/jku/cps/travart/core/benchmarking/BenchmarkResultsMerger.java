@@ -0,0 +1,113 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Merges results files written by {@link BenchmarkResultsWriter}, e.g., by the
+ * shards of a corpus transformed on several machines. The header of the merged
+ * file is the union of the headers of all files, in the order the columns
+ * appear first. Values of columns a file does not have are left empty. Rows
+ * equal to an earlier row, after reconciling the headers, are dropped.
+ */
+public final class BenchmarkResultsMerger {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(BenchmarkResultsMerger.class);
+
+	/**
+	 * Summary of a merge.
+	 *
+	 * @param files      number of merged files
+	 * @param rows       number of rows read from all files
+	 * @param duplicates number of dropped duplicate rows
+	 */
+	public record MergeSummary(int files, long rows, long duplicates) {
+
+		public long written() {
+			return rows - duplicates;
+		}
+	}
+
+	private BenchmarkResultsMerger() {
+	}
+
+	/**
+	 * Merges the given results files into the given output file. The output
+	 * may be one of the inputs, it is replaced once all inputs were read.
+	 *
+	 * @param inputs the results files to merge, in order
+	 * @param output the merged results file
+	 * @return the summary of the merge
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static MergeSummary merge(final List<Path> inputs, final Path output)
+			throws IOException {
+		CSVFormat format = CSVFormat.DEFAULT.builder().setHeader()
+				.setSkipHeaderRecord(true).get();
+		// Reconcile the headers first, rows are written in a single pass
+		Set<String> header = new LinkedHashSet<>();
+		for (Path input : inputs) {
+			try (Reader reader = Files.newBufferedReader(input);
+					CSVParser parser = format.parse(reader)) {
+				header.addAll(parser.getHeaderNames());
+			}
+		}
+		List<String> columns = List.copyOf(header);
+		LOGGER.debug("Merged header: " + columns);
+
+		Path parent = output.toAbsolutePath().getParent();
+		Path temporary = Files.createTempFile(parent, ".merge", ".tmp");
+		long rows = 0;
+		long duplicates = 0;
+		try {
+			Set<List<String>> seen = new HashSet<>();
+			try (Writer writer = Files.newBufferedWriter(temporary,
+					StandardCharsets.UTF_8);
+					CSVPrinter printer = new CSVPrinter(writer,
+							CSVFormat.DEFAULT.builder()
+									.setHeader(columns.toArray(String[]::new))
+									.get())) {
+				for (Path input : inputs) {
+					try (Reader reader = Files.newBufferedReader(input);
+							CSVParser parser = format.parse(reader)) {
+						for (CSVRecord record : parser) {
+							rows++;
+							List<String> row = new ArrayList<>(columns.size());
+							for (String column : columns) {
+								row.add(record.isSet(column) ? record.get(column)
+										: "");
+							}
+							if (seen.add(row)) {
+								printer.printRecord(row);
+							} else {
+								duplicates++;
+							}
+						}
+					}
+				}
+			}
+			Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		return new MergeSummary(inputs.size(), rows, duplicates);
+	}
+}
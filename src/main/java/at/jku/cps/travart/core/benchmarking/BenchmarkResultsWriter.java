@@ -3,12 +3,25 @@ package at.jku.cps.travart.core.benchmarking;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -24,7 +37,17 @@ import com.google.common.collect.ObjectArrays;
  * tools like R or Gnuplot.
  * 
  * Instances of this class are immutable once they are initialized. Please use a
- * new writer object for each transformation session.
+ * new writer object for each transformation session. Writing results is
+ * thread-safe, one writer can be shared by parallel transformations.
+ * 
+ * If the results file already exists, the writer loads the already written
+ * (file name, target type) keys once into an index, such that resumed sessions
+ * can skip already benchmarked files in constant time.
+ * 
+ * In asynchronous mode, records are handed over through a lock-free queue and
+ * written in batches by a single background thread. Each batch is forced to
+ * the storage device before the next flush interval starts, so records which
+ * were flushed survive a crash and resumed sessions skip them reliably.
  * 
  * @see CSVFormat
  */
@@ -33,15 +56,21 @@ public class BenchmarkResultsWriter {
 	private static final Logger LOGGER = LogManager
 			.getLogger(BenchmarkResultsWriter.class);
 
-	private final String[] defaultHeaders = {"fileName", "targetType", "result",
-			"deserializationTime"};
+	public static final String FILE_NAME_COLUMN = "fileName";
+	public static final String TARGET_TYPE_COLUMN = "targetType";
+
+	private final String[] defaultHeaders = {FILE_NAME_COLUMN,
+			TARGET_TYPE_COLUMN, "result", "deserializationTime"};
 	/*
 	 * Need additional member for format as it cannot be retrieved from the
 	 * printer once the printer is instantiated
 	 */
 	private final CSVFormat benchmarkResultsFormat;
-	private final CSVPrinter csvPrinter;
+	private final CSVPrinter csvPrinter; // null in asynchronous mode
+	private final AsyncWriteback asyncWriteback; // null in synchronous mode
 	private final Path resultsFile;
+	// File name -> target types with an entry in the results file
+	private final Map<String, Set<String>> writtenEntries = new ConcurrentHashMap<>();
 
 	public Path getResultsFile() {
 		return resultsFile;
@@ -49,11 +78,26 @@ public class BenchmarkResultsWriter {
 
 	public BenchmarkResultsWriter(List<IBenchmark> benchmarks, Path targetFile)
 			throws IOException {
+		this(benchmarks, targetFile, 0);
+	}
+
+	/**
+	 * Creates a writer for the given benchmarks.
+	 * 
+	 * @param benchmarks          benchmarks whose results are written
+	 * @param targetFile          CSV file to append the results to
+	 * @param flushIntervalMillis if positive, records are written asynchronously
+	 *                            and flushed to disk in this interval
+	 * @throws IOException if the results file cannot be read or opened
+	 */
+	public BenchmarkResultsWriter(List<IBenchmark> benchmarks, Path targetFile,
+			long flushIntervalMillis) throws IOException {
 		resultsFile = targetFile;
 		boolean exists = targetFile.toFile().exists();
 		if (exists) {
 			LOGGER.debug(
 					"Benchmark writeback file already exists, the transformer will skip already benchmarked files.");
+			loadWrittenEntries();
 		}
 		String[] benchmarkColumns = (String[]) benchmarks.stream()
 				.<String>flatMap(e -> e.getResultsHeader().stream())
@@ -64,33 +108,93 @@ public class BenchmarkResultsWriter {
 		benchmarkResultsFormat = exists
 				? benchmarkResultsFormatBuilder.setSkipHeaderRecord(true).get()
 				: benchmarkResultsFormatBuilder.get();
-		csvPrinter = new CSVPrinter(new FileWriter(targetFile.toString(), true),
-				benchmarkResultsFormat);
+		if (flushIntervalMillis > 0) {
+			csvPrinter = null;
+			asyncWriteback = new AsyncWriteback(targetFile,
+					exists ? null : benchmarkResultsFormat.getHeader(),
+					flushIntervalMillis);
+		} else {
+			csvPrinter = new CSVPrinter(
+					new FileWriter(targetFile.toString(), true),
+					benchmarkResultsFormat);
+			asyncWriteback = null;
+		}
 	}
 
 	public void writeResults(Map<String, Object> dict) throws IOException {
-		List<Object> sortedResults = new LinkedList<>();
+		String[] header = benchmarkResultsFormat.getHeader();
+		List<Object> sortedResults = new ArrayList<>(header.length);
 
-		for (String column : benchmarkResultsFormat.getHeader()) {
+		for (String column : header) {
 			sortedResults.add(dict.get(column));
 		}
 
 		sortedResults.removeAll(Collections.singleton(null));
 
-		csvPrinter.printRecord(sortedResults);
+		if (Objects.nonNull(asyncWriteback)) {
+			asyncWriteback.enqueue(sortedResults);
+		} else {
+			synchronized (this) {
+				csvPrinter.printRecord(sortedResults);
+			}
+		}
+		indexEntry(dict.get(FILE_NAME_COLUMN), dict.get(TARGET_TYPE_COLUMN));
 	}
 
-	public void dispose() throws IOException {
-		csvPrinter.close();
+	/**
+	 * Forces the records written so far to the results file, e.g., between the
+	 * batches of a long-running session. Asynchronous writers flush in their
+	 * interval anyway.
+	 * 
+	 * @throws IOException if the records cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		if (Objects.nonNull(csvPrinter)) {
+			csvPrinter.flush();
+		}
+	}
+
+	public synchronized void dispose() throws IOException {
+		if (Objects.nonNull(asyncWriteback)) {
+			asyncWriteback.close();
+		} else {
+			csvPrinter.close();
+		}
 	}
 
 	public List<String> getRecordTemplate() {
 		return Arrays.asList(benchmarkResultsFormat.getHeader());
 	}
 
-	// Users should check before inserting duplicates with this method
+	/**
+	 * Checks whether the results file already has an entry for the given file
+	 * and target type. Users should check before inserting duplicates with this
+	 * method. The lookup uses the in-memory index and does not read the file.
+	 * 
+	 * @param fileName   name of the transformed file
+	 * @param targetType target type of the transformation
+	 * @return true if an entry was already written
+	 */
+	public boolean entryAlreadyExists(String fileName, String targetType) {
+		Set<String> targetTypes = writtenEntries.get(fileName);
+		return Objects.nonNull(targetTypes) && targetTypes
+				.contains(Objects.toString(targetType, ""));
+	}
+
+	/**
+	 * Checks whether the given file has an entry with the given key in the
+	 * given column. Lookups of file names in the results file of this writer use
+	 * the in-memory index, otherwise the file is parsed.
+	 * 
+	 * @deprecated use {@link #entryAlreadyExists(String, String)}
+	 */
+	@Deprecated
 	public boolean entryAlreadyExists(String column, String key,
 			Path targetFile) {
+		if (FILE_NAME_COLUMN.equals(column)
+				&& resultsFile.equals(targetFile)) {
+			return writtenEntries.containsKey(key);
+		}
 		try (FileReader r = new FileReader(targetFile.toString())) {
 			List<CSVRecord> records = benchmarkResultsFormat.parse(r)
 					.getRecords();
@@ -106,4 +210,134 @@ public class BenchmarkResultsWriter {
 		}
 		return false;
 	}
+
+	private void loadWrittenEntries() throws IOException {
+		// Read header from the file, columns may differ from the current session
+		CSVFormat existingFormat = CSVFormat.DEFAULT.builder().setHeader()
+				.setSkipHeaderRecord(true).get();
+		try (FileReader r = new FileReader(resultsFile.toString())) {
+			for (CSVRecord rec : existingFormat.parse(r)) {
+				if (rec.isMapped(FILE_NAME_COLUMN)
+						&& rec.isSet(FILE_NAME_COLUMN)) {
+					indexEntry(rec.get(FILE_NAME_COLUMN),
+							rec.isSet(TARGET_TYPE_COLUMN)
+									? rec.get(TARGET_TYPE_COLUMN)
+									: null);
+				}
+			}
+		}
+		LOGGER.debug("Benchmark writeback file already has entries for "
+				+ writtenEntries.size() + " files!");
+	}
+
+	/*
+	 * Background writer of the asynchronous mode. Producers only append to a
+	 * lock-free queue, the writer thread drains it, formats the batch and
+	 * appends it with a single write before forcing it to disk. Producers share
+	 * a lock which closing takes exclusively, such that no record is appended
+	 * after the final flush.
+	 */
+	private static final class AsyncWriteback {
+
+		private final Queue<List<Object>> pending = new ConcurrentLinkedQueue<>();
+		private final FileChannel channel;
+		private final long flushIntervalNanos;
+		private final Thread writer;
+		private final ReadWriteLock closing = new ReentrantReadWriteLock();
+		private volatile boolean closed;
+		private volatile IOException failure;
+
+		private AsyncWriteback(Path targetFile, String[] header,
+				long flushIntervalMillis) throws IOException {
+			channel = FileChannel.open(targetFile, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			flushIntervalNanos = TimeUnit.MILLISECONDS
+					.toNanos(flushIntervalMillis);
+			if (Objects.nonNull(header)) {
+				pending.add(Arrays.asList((Object[]) header));
+				flush();
+			}
+			writer = new Thread(this::run, "benchmark-results-writer");
+			writer.setDaemon(true);
+			writer.start();
+		}
+
+		private void enqueue(List<Object> record) throws IOException {
+			if (Objects.nonNull(failure)) {
+				throw failure;
+			}
+			closing.readLock().lock();
+			try {
+				if (closed) {
+					throw new IOException(
+							"Benchmark results writer is closed!");
+				}
+				pending.add(record);
+			} finally {
+				closing.readLock().unlock();
+			}
+		}
+
+		private void run() {
+			while (!closed) {
+				LockSupport.parkNanos(this, flushIntervalNanos);
+				try {
+					flush();
+				} catch (IOException e) {
+					LOGGER.error("Unable to write benchmark results!", e);
+					failure = e;
+					return;
+				}
+			}
+		}
+
+		private void flush() throws IOException {
+			StringBuilder batch = new StringBuilder();
+			try (CSVPrinter printer = new CSVPrinter(batch, CSVFormat.DEFAULT)) {
+				List<Object> record;
+				while ((record = pending.poll()) != null) {
+					printer.printRecord(record);
+				}
+			}
+			if (batch.isEmpty()) {
+				return;
+			}
+			ByteBuffer bytes = StandardCharsets.UTF_8.encode(batch.toString());
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(false);
+		}
+
+		private void close() throws IOException {
+			closing.writeLock().lock();
+			try {
+				closed = true;
+			} finally {
+				closing.writeLock().unlock();
+			}
+			LockSupport.unpark(writer);
+			try {
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			try (channel) {
+				if (Objects.nonNull(failure)) {
+					throw failure;
+				}
+				// Write records enqueued after the last flush
+				flush();
+			}
+		}
+	}
+
+	private void indexEntry(Object fileName, Object targetType) {
+		if (Objects.nonNull(fileName)) {
+			writtenEntries
+					.computeIfAbsent(fileName.toString(),
+							k -> ConcurrentHashMap.newKeySet())
+					.add(Objects.toString(targetType, ""));
+		}
+	}
 }
@@ -8,6 +8,10 @@ import com.google.common.eventbus.EventBus;
  * Interface for classes that emit onto {@link EventBus}es. While it is not
  * specified through type constraints, by contract, classes that implement
  * interface should use {@link IBenchmarkingEvent}.
+ * 
+ * The CLI sets a {@link BenchmarkEventBus}. Emitters posting many events, e.g.,
+ * one {@link NewFeatureEvent} per feature, should check
+ * {@link BenchmarkEventBus#isListening(EventBus, Class)} before creating them.
  */
 public interface IEmitting {
 
@@ -0,0 +1,86 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import com.google.auto.service.AutoService;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Reports the garbage collections, their accumulated time and the time spent
+ * on JIT compilation during the transformation steps of a model, based on the
+ * {@link PhaseBeginEvent}s and {@link PhaseEndEvent}s of the CLI. Samples with
+ * collections or compilations may be discarded or corrected, as their times
+ * include pauses and compiler threads competing for the CPU.
+ * 
+ * The counters are global to the JVM, i.e., they include the activity of
+ * models transformed in parallel (see --jobs). Compilation time is -1 if the
+ * JVM does not monitor it.
+ */
+@AutoService(IBenchmark.class)
+@SuppressWarnings("rawtypes")
+public class JvmActivityBenchmark extends AbstractBenchmark<Long> {
+
+	private long collections;
+	private long collectionTime;
+	private long compilationTime;
+	private long[] begin;
+
+	@Subscribe
+	private void beginOfPhase(PhaseBeginEvent event) {
+		if (event.phase == Phase.TRANSFORMATION) {
+			begin = sample();
+		}
+	}
+
+	@Subscribe
+	private void endOfPhase(PhaseEndEvent event) {
+		if (event.phase != Phase.TRANSFORMATION || begin == null) {
+			return;
+		}
+		long[] end = sample();
+		collections += end[0] - begin[0];
+		collectionTime += end[1] - begin[1];
+		if (compilationTime >= 0 && end[2] >= 0) {
+			compilationTime += end[2] - begin[2];
+		} else {
+			compilationTime = -1;
+		}
+		begin = null;
+	}
+
+	// Collections, collection time and compilation time (in milliseconds)
+	private static long[] sample() {
+		long[] sample = new long[3];
+		for (GarbageCollectorMXBean collector : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			// Undefined values are -1
+			sample[0] += Math.max(0, collector.getCollectionCount());
+			sample[1] += Math.max(0, collector.getCollectionTime());
+		}
+		CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+		sample[2] = compiler != null
+				&& compiler.isCompilationTimeMonitoringSupported()
+						? compiler.getTotalCompilationTime()
+						: -1;
+		return sample;
+	}
+
+	@Override
+	public List<Long> getResults() {
+		return List.of(collections, collectionTime, compilationTime);
+	}
+
+	@Override
+	public List<String> getResultsHeader() {
+		return List.of("gcCollections", "gcTimeMillis", "jitCompilationMillis");
+	}
+
+	@Override
+	public String getId() {
+		return "jvmActivity";
+	}
+
+}
@@ -0,0 +1,9 @@
+package at.jku.cps.travart.core.benchmarking;
+
+/**
+ * Phases of the transformation of a single model, see {@link PhaseBeginEvent}
+ * and {@link PhaseEndEvent}.
+ */
+public enum Phase {
+	DESERIALIZATION, TRANSFORMATION, STATISTICS, SERIALIZATION
+}
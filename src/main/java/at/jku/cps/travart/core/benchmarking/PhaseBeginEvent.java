@@ -0,0 +1,30 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.time.Instant;
+
+/**
+ * Emitted when a phase of the transformation of a model begins, e.g., by the
+ * CLI before deserializing the model or by transformers before collecting
+ * statistics.
+ * 
+ * This event has custom "phase", "step" and "nanoTime" fields. The step is the
+ * 1-based index of the transformation step for
+ * {@link Phase#TRANSFORMATION}, and 0 otherwise. The nano time is taken from
+ * {@link System#nanoTime()}, i.e., it is monotonic but only comparable to the
+ * nano times of other events of the same JVM.
+ */
+public class PhaseBeginEvent extends AbstractBenchmarkEvent {
+
+	public final Phase phase;
+	public final int step;
+	public final long nanoTime;
+
+	public PhaseBeginEvent(Instant time, String msg, int ctx, Phase phase,
+			int step, long nanoTime) {
+		super(time, msg, ctx);
+		this.phase = phase;
+		this.step = step;
+		this.nanoTime = nanoTime;
+	}
+
+}
@@ -0,0 +1,105 @@
+package at.jku.cps.travart.core.benchmarking;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.auto.service.AutoService;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Breaks the time spent on a model down into its phases, see {@link Phase},
+ * based on the monotonic nano times of {@link PhaseBeginEvent} and
+ * {@link PhaseEndEvent}. Unlike {@link TransformationTimeBenchmark}, it covers
+ * all stages from deserialization to serialization and is not affected by
+ * adjustments of the wall clock.
+ * 
+ * All results are in nanoseconds. Transformation steps are reported in
+ * separate columns, steps which were not scheduled report 0. Statistics are
+ * collected by the transformers and the CLI during the transformation steps,
+ * i.e., the statistics time is included in the step times. The total time
+ * spans from the first to the last phase, which includes the time a model
+ * waits between the stages of a pipeline (see --pipeline).
+ */
+@AutoService(IBenchmark.class)
+@SuppressWarnings("rawtypes")
+public class PhaseTimeBenchmark extends AbstractBenchmark<Long> {
+
+	// Source to pivot model, pivot to target model, and back for roundtrips
+	static final int MAX_STEPS = 4;
+
+	private final Map<Phase, Long> begins = new EnumMap<>(Phase.class);
+	private final Map<Phase, Long> elapsed = new EnumMap<>(Phase.class);
+	private final long[] steps = new long[MAX_STEPS];
+	private long first;
+	private long last;
+	private boolean started;
+
+	@Subscribe
+	private void beginOfPhase(PhaseBeginEvent event) {
+		if (!started) {
+			first = event.nanoTime;
+			started = true;
+		}
+		begins.put(event.phase, event.nanoTime);
+	}
+
+	@Subscribe
+	private void endOfPhase(PhaseEndEvent event) {
+		Long begin = begins.remove(event.phase);
+		if (begin == null) {
+			LOGGER.warn(String.format(
+					"Phase %s ended without beginning, ignoring it...",
+					event.phase));
+			return;
+		}
+		long duration = event.nanoTime - begin;
+		elapsed.merge(event.phase, duration, Long::sum);
+		if (event.phase == Phase.TRANSFORMATION) {
+			// Further steps are only part of the transformation time
+			if (event.step >= 1 && event.step <= MAX_STEPS) {
+				steps[event.step - 1] += duration;
+			} else {
+				LOGGER.warn(String.format(
+						"Transformation step %d is not reported separately.",
+						event.step));
+			}
+		}
+		last = event.nanoTime;
+	}
+
+	@Override
+	public List<Long> getResults() {
+		List<Long> results = new ArrayList<>(getResultsHeader().size());
+		results.add(elapsed.getOrDefault(Phase.DESERIALIZATION, 0L));
+		results.add(elapsed.getOrDefault(Phase.TRANSFORMATION, 0L));
+		for (long step : steps) {
+			results.add(step);
+		}
+		results.add(elapsed.getOrDefault(Phase.STATISTICS, 0L));
+		results.add(elapsed.getOrDefault(Phase.SERIALIZATION, 0L));
+		results.add(started ? last - first : 0L);
+		return results;
+	}
+
+	@Override
+	public List<String> getResultsHeader() {
+		List<String> header = new ArrayList<>();
+		header.add("phaseDeserializationNanos");
+		header.add("phaseTransformationNanos");
+		for (int step = 1; step <= MAX_STEPS; step++) {
+			header.add("phaseStep" + step + "Nanos");
+		}
+		header.add("phaseStatisticsNanos");
+		header.add("phaseSerializationNanos");
+		header.add("phaseTotalNanos");
+		return header;
+	}
+
+	@Override
+	public String getId() {
+		return "phaseTime";
+	}
+
+}
@@ -0,0 +1,1802 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger 
+ *
+ * Copyright 2023 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.cli;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.slf4j.event.Level;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Iterators;
+import com.google.common.eventbus.EventBus;
+
+import at.jku.cps.travart.core.FeatureModelStatistics;
+import at.jku.cps.travart.core.batch.AdaptiveTimeouts;
+import at.jku.cps.travart.core.batch.BatchRunner;
+import at.jku.cps.travart.core.batch.BatchScheduler;
+import at.jku.cps.travart.core.batch.BatchScheduler.ScheduledFile;
+import at.jku.cps.travart.core.batch.DirectoryWatcher;
+import at.jku.cps.travart.core.batch.FanOutBus;
+import at.jku.cps.travart.core.batch.HeapAdmission;
+import at.jku.cps.travart.core.batch.ProgressReporter;
+import at.jku.cps.travart.core.batch.Shard;
+import at.jku.cps.travart.core.batch.StagedPipeline;
+import at.jku.cps.travart.core.batch.TimeoutExecutor;
+import at.jku.cps.travart.core.batch.TransformationCache;
+import at.jku.cps.travart.core.batch.WatchLoop;
+import at.jku.cps.travart.core.batch.WorkerPool;
+import at.jku.cps.travart.core.batch.WorkerProcess;
+import at.jku.cps.travart.core.benchmarking.AllocationEvent;
+import at.jku.cps.travart.core.benchmarking.BenchmarkEventBus;
+import at.jku.cps.travart.core.benchmarking.BenchmarkRegistry;
+import at.jku.cps.travart.core.benchmarking.BenchmarkRegistry.BenchmarkFactory;
+import at.jku.cps.travart.core.benchmarking.BenchmarkResultsWriter;
+import at.jku.cps.travart.core.benchmarking.IBenchmark;
+import at.jku.cps.travart.core.benchmarking.Phase;
+import at.jku.cps.travart.core.benchmarking.PhaseBeginEvent;
+import at.jku.cps.travart.core.benchmarking.PhaseEndEvent;
+import at.jku.cps.travart.core.common.IModelTransformer;
+import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
+import at.jku.cps.travart.core.common.IPlugin;
+import at.jku.cps.travart.core.common.ISerializer;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.exception.StageTimeoutException;
+import at.jku.cps.travart.core.exception.TransformationException;
+import at.jku.cps.travart.core.io.TraVarTFileUtils;
+import at.jku.cps.travart.core.io.UVLDeserializer;
+import at.jku.cps.travart.core.io.UVLSerializer;
+import at.jku.cps.travart.core.transformation.AbstractBenchmarkingTransformer;
+import de.vill.model.FeatureModel;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Batch engine of the commands transforming variability artifacts: walks
+ * folders, runs the stages of each model under timeouts, in parallel, pipelined
+ * or in isolated worker processes, sets up benchmarking, writes results, etc.
+ * Subclasses only decide which (de-)serializers and transformers are used, see
+ * {@link TransformCommand} resolving installed plugins and
+ * {@link BootstrappedTransformCommand} using the components of the plugin
+ * bootstrapping the CLI.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class AbstractTransformCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(AbstractTransformCommand.class);
+
+	// Seconds a worker process may take to start the JVM and plugins
+	private static final long WORKER_STARTUP_TIMEOUT = 120;
+	// Tolerance on top of the timeouts of the stages run by a worker process
+	private static final long WORKER_GRACE_PERIOD_MILLIS = 2000;
+	// Models a stage must have finished before its timeout adapts
+	private static final int ADAPTIVE_TIMEOUT_MIN_SAMPLES = 10;
+	// Lower bound of adaptive timeouts, absorbs GC pauses and JIT compilation
+	private static final long ADAPTIVE_TIMEOUT_MIN_MILLIS = 250;
+	// Share of the maximum heap surviving a collection which pauses intake
+	private static final double HEAP_PRESSURE_THRESHOLD = 0.9;
+
+	private static String toStringList(final Iterable<String> fileExtensions) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{ ");
+		for (String extension : fileExtensions) {
+			builder.append(extension).append(",");
+		}
+		builder.deleteCharAt(builder.lastIndexOf(","));
+		builder.append(" }");
+		return builder.toString();
+	}
+
+	@Parameters(index = "0", description = "The source path to the variability artifact to transform. If the path is a folder, each variability artifact of the source type is transformed.")
+	private Path sourcePath;
+
+	@Parameters(index = "1", description = "The output path to which the variability artifact is transformed. If the source is given as a folder, this parameter must be a folder too.")
+	private Path targetPath;
+
+	// Resolved once per run, see getSourceType() and getTargetTypes()
+	private String sourceType;
+	private List<String> targetTypes;
+
+	@Option(names = {"-b",
+			"--benchmark"}, split = ",", required = false, description = "Name of the respective benchmarks to use (comma-seperated). A list of available benchmarks are provided by the bench command.")
+	private List<String> benchmarks;
+
+	@Option(names = {"-wb",
+			"--write-benchmarks"}, required = false, description = "Path to file to which the benchmark results should be written in CSV format. This is optional.")
+	private Path benchmarkResultsFile;
+
+	@Option(names = {
+			"--async-writeback"}, description = "Write benchmark results asynchronously on a background thread. Records are batched and forced to disk every --writeback-flush-interval milliseconds.")
+	private boolean asyncWriteback;
+
+	@Option(names = {
+			"--writeback-flush-interval"}, defaultValue = "1000", description = "Flush interval in milliseconds for --async-writeback. Defaults to 1000 ms.")
+	private long writebackFlushInterval;
+
+	@Option(names = {
+			"--blacklist-file"}, required = false, description = "File with CR-seperated list of file names. Files that match with any of the names from the given file will be ignored/skipped.")
+	private Path blacklistFile;
+
+	// Hash-indexed, parallel workers add hung files while others look up
+	private Set<String> blacklistedNames;
+
+	@Option(names = {
+			"--strategy"}, required = false, defaultValue = "ONE_WAY", description = "Transformation strategy to use: ROUNDTRIP or ONE_WAY. Will default to ONE_WAY if none given.")
+	private STRATEGY strategy;
+
+	@Option(names = {
+			"--inplace-roundtrip"}, description = "Set only if --strategy was set to ROUNDTRIP. Does an in-place roundtrip transformation over the targetType.")
+	private boolean inPlaceRoundtrip;
+
+	@Option(names = {
+			"--no-serialize"}, description = "Do not serialize after transformation. Especially useful if the plugin used does not have a robust serializer, or only the benchmarking results are relevant.")
+	private boolean skipSerialization;
+
+	@Option(names = {
+			"--reverse-transformation"}, description = "Reverses transformation directly after, benchmarking only the reverse transformation. Behaviour depends on used strategy and --no-serialize.")
+	private boolean reverseTransformation;
+
+	@Option(names = {
+			"--strict"}, description = "Whether TraVarT should abort if the underlying plugin throws an exception. This is only relevant when multiple models are being transformed.")
+	private boolean strict;
+
+	@Option(names = {
+			"--timeout"}, defaultValue = "5", description = "Timeout in seconds for (de-)serializing models. Defaults to 5 seconds.")
+	private long timeout;
+
+	@Option(names = {
+			"--adaptive-timeout"}, description = "Derive the timeout of each stage from the size of the model (file size, number of features and constraints), using a cost model fitted to the models transformed so far. The deserializer also learns from earlier results files, see --write-benchmarks and --timings. Until enough models were transformed, --timeout is used.")
+	private boolean adaptiveTimeout;
+
+	@Option(names = {
+			"--timeout-safety-factor"}, defaultValue = "3.0", description = "Factor applied to the predicted duration of a stage for --adaptive-timeout. Defaults to 3.0.")
+	private double timeoutSafetyFactor;
+
+	@Option(names = {
+			"--max-timeout"}, defaultValue = "60", description = "Upper bound in seconds of adaptive timeouts for --adaptive-timeout. Defaults to 60 seconds.")
+	private long maxTimeout;
+
+	@Option(names = {
+			"--schedule"}, defaultValue = "SMALLEST_FIRST", description = "Order in which the models of a folder are transformed: SMALLEST_FIRST or LONGEST_FIRST. LONGEST_FIRST starts the models expected to take longest first, based on the timings of earlier results files. Defaults to SMALLEST_FIRST.")
+	private BatchScheduler.Order schedule;
+
+	@Option(names = {
+			"--timings"}, split = ",", description = "Results files of earlier sessions (comma-seperated) providing the timings for --schedule LONGEST_FIRST. The file given by --write-benchmarks is always used if it exists.")
+	private List<Path> timingFiles;
+
+	@Option(names = {
+			"--cache"}, description = "Directory of a cache of transformation outputs. Models which did not change since they were cached (same content, types, strategy, benchmarks and plugin versions) are not transformed again, their cached output and benchmark results are reused.")
+	private Path cacheDirectory;
+
+	@Option(names = {
+			"--cache-size"}, defaultValue = "1024", description = "Size in megabytes the cache given by --cache is bounded to. The least recently used outputs are evicted first. Defaults to 1024 MB.")
+	private long cacheSize;
+
+	@Option(names = {
+			"--invalidate-cache"}, split = ",", description = "IDs of plugins (comma-seperated) whose outputs are removed from the cache given by --cache before transforming.")
+	private List<String> invalidatedPlugins;
+
+	@Option(names = {"-r",
+			"--recursive"}, description = "Transform the models of all subdirectories of the source folder. Models are transformed as soon as they are found, the target folder mirrors the subdirectories.")
+	private boolean recursive;
+
+	@Option(names = {
+			"--watch"}, description = "Keep running after transforming the source folder and transform created or modified models again as soon as they changed. Changes are debounced, see --watch-debounce.")
+	private boolean watch;
+
+	@Option(names = {
+			"--watch-debounce"}, defaultValue = "500", description = "Time in milliseconds without further changes before changed models are transformed in --watch mode. Defaults to 500 ms.")
+	private long watchDebounce;
+
+	@Option(names = {
+			"--shard"}, description = "Transform only the given shard i/n of the models of the source folder, e.g., 2/4 for the second of four shards. Models are assigned by a stable hash of their path relative to the source folder, such that several machines can transform a corpus without coordination. Combine the results with the merge-results command.")
+	private String shard;
+	private Shard selectedShard;
+
+	// Set while transforming changed models, see --watch
+	private volatile boolean watching;
+
+	@Option(names = {"-j",
+			"--jobs"}, defaultValue = "1", description = "Number of models transformed in parallel when the source path is a folder. Each worker uses its own plugin instances. Defaults to 1.")
+	private int jobs;
+
+	@Option(names = {
+			"--pipeline"}, description = "Run deserialization, transformation and serialization as pipelined stages when the source path is a folder. The transformation stage uses --jobs workers.")
+	private boolean pipeline;
+
+	@Option(names = {
+			"--pipeline-capacity"}, defaultValue = "4", description = "Capacity of the hand-off queue in front of each pipeline stage. Defaults to 4.")
+	private int pipelineCapacity;
+
+	@Option(names = {
+			"--heap-budget"}, defaultValue = "0", description = "Heap in megabytes a parallel or pipelined batch may use. Models are only started while the heap projected from their file size (calibrated with the heap measured after garbage collections) stays within the budget, and intake pauses while the heap is nearly exhausted after garbage collections. Disabled by default.")
+	private long heapBudget;
+
+	@Option(names = {
+			"--progress"}, defaultValue = "0", description = "Interval in seconds in which the progress of a folder is reported: throughput, estimated time of arrival, completed/failed/timed out models and the rolling p50/p95/p99 latency of each stage. Defaults to 0, i.e., no reports.")
+	private long progressInterval;
+
+	@Option(names = {
+			"--progress-file"}, description = "File to which each progress report is written in JSON format, replacing the previous report. This is optional.")
+	private Path progressFile;
+
+	@Option(names = {
+			"--isolate"}, defaultValue = "0", description = "Number of forked worker JVMs transforming the models of a folder. A worker exceeding the timeout is killed and replaced, the batch continues with the next model. Disabled by default.")
+	private int isolatedWorkers;
+
+	// Set in forked workers, models are read from stdin, see --isolate
+	@Option(names = {"--isolated-worker"}, hidden = true)
+	private boolean isolatedWorker;
+
+	// Plugins are not thread-safe, each worker thread owns its own context
+	// per target type, created in call()
+	private ThreadLocal<Map<String, TransformationContext>> workerContexts;
+	// Transforms the pivot model into the target types, if more than one
+	private ExecutorService fanOutExecutor;
+	private volatile BenchmarkResultsWriter rw;
+	// Worker JVMs of the dispatcher threads, set in isolation mode
+	private WorkerPool workerPool;
+	// Runs every stage of every file, shared by all workers
+	// Set once the benchmarks are known, see initializeTimeoutExecutor()
+	private TimeoutExecutor timeoutExecutor;
+	// Set with --adaptive-timeout, learns from all workers
+	private AdaptiveTimeouts adaptiveTimeouts;
+	// Resolved once per run from the --benchmark option
+	private List<BenchmarkFactory> selectedBenchmarks = List.of();
+	// Set with --cache, shared by all workers
+	private TransformationCache cache;
+	// Set with --heap-budget, shared by all workers
+	private HeapAdmission heapAdmission;
+	// Set for folders if enabled with --progress
+	private ProgressReporter progress;
+	private final FeatureModelStatistics statistics = new FeatureModelStatistics();
+	// Released once the results are written, awaited on shutdown in watch mode
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	@Override
+	public Integer call() throws Exception {
+		LOGGER.debug("Verify parameters...");
+		sourceType = getSourceType();
+		targetTypes = List.copyOf(new LinkedHashSet<>(getTargetTypes()));
+		for (String targetType : targetTypes) {
+			if (sourceType.equalsIgnoreCase(targetType)) {
+				LOGGER.error(
+						"Source and Target type are equal, no transformation needed");
+				return 1;
+			}
+		}
+		LOGGER.debug("Verify the given paths...");
+		if (!(Files.isRegularFile(sourcePath)
+				|| Files.isDirectory(sourcePath))) {
+			LOGGER.error("Given source path is not a valid one!");
+			return 2;
+		}
+		if (!(Files.isRegularFile(targetPath)
+				|| Files.isDirectory(targetPath))) {
+			if (Files.exists(targetPath)) {
+				LOGGER.error("Given target path is not a valid one!");
+				return 3;
+			}
+			targetPath.toFile().mkdirs();
+		}
+		if (Objects.nonNull(blacklistFile)) {
+			LOGGER.debug("Reading blacklist file: %s",
+					blacklistFile.toAbsolutePath());
+			if (Files.exists(blacklistFile)
+					&& Files.isRegularFile(blacklistFile)) {
+				blacklistedNames = ConcurrentHashMap.newKeySet();
+				blacklistedNames.addAll(Files.readAllLines(blacklistFile));
+				LOGGER.debug("Blacklisted %d files!", blacklistedNames.size());
+			} else {
+				LOGGER.error(
+						"Path to blacklist file given, but the given file is not valid.");
+				return 4;
+			}
+		}
+		if (jobs < 1 || pipelineCapacity < 1 || isolatedWorkers < 0
+				|| (asyncWriteback && writebackFlushInterval < 1)
+				|| (watch && watchDebounce < 1) || heapBudget < 0
+				|| progressInterval < 0) {
+			LOGGER.error(
+					"Number of jobs, pipeline capacity, flush interval and debounce time must be at least 1, heap budget and progress interval must not be negative!");
+			return 6;
+		}
+		if (isolatedWorkers > 0 && Objects.isNull(getWorkerMainClass())) {
+			LOGGER.warn(
+					"Isolation mode is not supported by this command, transforming in this process instead.");
+			isolatedWorkers = 0;
+		}
+		if (adaptiveTimeout) {
+			if (timeoutSafetyFactor < 1 || maxTimeout < 1) {
+				LOGGER.error(
+						"Timeout safety factor and maximum timeout must be at least 1!");
+				return 6;
+			}
+			adaptiveTimeouts = new AdaptiveTimeouts(timeoutSafetyFactor,
+					ADAPTIVE_TIMEOUT_MIN_SAMPLES,
+					TimeUnit.SECONDS.toMillis(timeout),
+					Math.min(ADAPTIVE_TIMEOUT_MIN_MILLIS,
+							TimeUnit.SECONDS.toMillis(maxTimeout)),
+					TimeUnit.SECONDS.toMillis(maxTimeout));
+		}
+		// Collect necessary information for transformations
+		LOGGER.debug("Initialize transformations...");
+		Map<String, TransformationContext> contexts = new LinkedHashMap<>();
+		for (String targetType : targetTypes) {
+			TransformationContext context = new TransformationContext();
+			int init = initializeTransformations(context, targetType);
+			if (init != 0) {
+				LOGGER.error(
+						"Unable to initialize plugins! Check installed plugins using command \"plugin\".");
+				return 5;
+			}
+			contexts.put(targetType, context);
+		}
+		workerContexts = ThreadLocal.withInitial(this::createContexts);
+		workerContexts.set(contexts);
+		if (jobs > 1
+				&& !(isParallelizable() && providesFreshComponents(contexts))) {
+			LOGGER.warn(
+					"The plugin provides a single instance of its components, transforming one model at a time.");
+			jobs = 1;
+		}
+		if (targetTypes.size() > 1) {
+			// Every worker may wait for all of its target types at once
+			AtomicInteger fanOutIndex = new AtomicInteger();
+			fanOutExecutor = Executors.newFixedThreadPool(
+					targetTypes.size() * Math.max(jobs, 1), r -> {
+						Thread worker = new Thread(r, "fan-out-worker_"
+								+ fanOutIndex.incrementAndGet());
+						worker.setDaemon(true);
+						return worker;
+					});
+		}
+		if (Objects.nonNull(benchmarks) && benchmarks.size() != 0) {
+			// Discover benchmarks once, each file gets fresh instances
+			selectedBenchmarks = BenchmarkRegistry.load().select(benchmarks);
+		}
+		initializeTimeoutExecutor();
+		if (Objects.nonNull(adaptiveTimeouts)) {
+			seedAdaptiveTimeouts();
+		}
+		if (Objects.nonNull(cacheDirectory)) {
+			if (cacheSize < 1) {
+				LOGGER.error("Cache size must be at least 1 MB!");
+				return 6;
+			}
+			if (contexts.values().stream().map(this::getPluginVersions)
+					.anyMatch(Objects::isNull)) {
+				// Outputs of other versions would be reused
+				LOGGER.error(
+						"Unable to determine the version of the plugin, which is required to cache its outputs!");
+				return 6;
+			}
+			cache = new TransformationCache(cacheDirectory,
+					cacheSize * 1024 * 1024);
+			if (Objects.nonNull(invalidatedPlugins)) {
+				for (String pluginId : invalidatedPlugins) {
+					LOGGER.info(String.format(
+							"Removed %d cached outputs of plugin %s",
+							cache.invalidate(pluginId), pluginId));
+				}
+			}
+		}
+		if (Objects.nonNull(shard)) {
+			try {
+				selectedShard = Shard.parse(shard);
+			} catch (IllegalArgumentException e) {
+				LOGGER.error(e.getMessage());
+				return 6;
+			}
+		}
+		if (heapBudget > 0 && isolatedWorkers == 0 && !isolatedWorker) {
+			heapAdmission = new HeapAdmission(heapBudget * 1024 * 1024,
+					HEAP_PRESSURE_THRESHOLD);
+		} else if (heapBudget > 0) {
+			LOGGER.warn(
+					"Heap budget ignored in isolation mode, limit the heap of the worker processes with -Xmx instead.");
+		}
+		// Run transformations
+		LOGGER.debug("Starting transformation of variability artifacts...");
+		try {
+			if (isolatedWorker) {
+				return serveAsIsolatedWorker();
+			}
+			if (Files.isRegularFile(sourcePath)) {
+				if (watch) {
+					LOGGER.warn("Watch mode requires a source folder, ignored!");
+				}
+				return transformSingleFile(sourcePath);
+			}
+			if (progressInterval > 0) {
+				progress = new ProgressReporter(progressInterval, System.out,
+						progressFile);
+			} else if (Objects.nonNull(progressFile)) {
+				LOGGER.warn(
+						"Progress file ignored, enable progress reports with --progress!");
+			}
+			if (watch && sourcePath.toAbsolutePath().normalize().equals(
+					targetPath.toAbsolutePath().normalize())) {
+				LOGGER.error(
+						"Watch mode requires a target folder different from the source folder!");
+				return 6;
+			}
+			if (watch) {
+				return watchDirectory();
+			}
+			return transformDirectory();
+		} catch (IOException | NotSupportedVariabilityTypeException ex) {
+			LOGGER.error("Error while handling files...");
+			LOGGER.error(ex.toString());
+			throw new TransformationException(ex);
+		} finally {
+			if (Objects.nonNull(adaptiveTimeouts)) {
+				adaptiveTimeouts.describe().forEach(model -> LOGGER
+						.debug(String.format("Timeout cost model %s", model)));
+			}
+			if (Objects.nonNull(progress)) {
+				// Final report
+				progress.close();
+			}
+			timeoutExecutor.close();
+			if (Objects.nonNull(fanOutExecutor)) {
+				fanOutExecutor.shutdownNow();
+			}
+			if (Objects.nonNull(workerPool)) {
+				workerPool.close();
+			}
+			// Need to close ResultsWriter here if it's set
+			if (Objects.nonNull(rw)) {
+				LOGGER.debug(
+						"Used ResultsWriter, closing enclosed FileWriter...");
+				rw.dispose();
+			}
+			finished.countDown();
+		}
+	}
+
+	private Map<String, TransformationContext> createContexts() {
+		LOGGER.debug("Initialize transformations for worker %s...",
+				Thread.currentThread().getName());
+		Map<String, TransformationContext> contexts = new LinkedHashMap<>();
+		for (String targetType : targetTypes) {
+			TransformationContext context = new TransformationContext();
+			if (initializeTransformations(context, targetType) != 0) {
+				// Plugins were already resolved once in call(), should not
+				// happen
+				throw new IllegalStateException(
+						"Unable to initialize plugins for worker thread!");
+			}
+			contexts.put(targetType, context);
+		}
+		return contexts;
+	}
+
+	// Workers transform with the components of their own contexts, which are
+	// only distinct if the plugins return a new instance on every call
+	private boolean providesFreshComponents(
+			final Map<String, TransformationContext> contexts) {
+		Map<String, TransformationContext> probe = createContexts();
+		for (String targetType : targetTypes) {
+			TransformationContext context = contexts.get(targetType);
+			TransformationContext other = probe.get(targetType);
+			Set<Object> components = Collections
+					.newSetFromMap(new IdentityHashMap<>());
+			components.add(context.deserializer);
+			components.add(context.serializer);
+			components.addAll(context.transformers);
+			if (components.contains(other.deserializer)
+					|| components.contains(other.serializer)
+					|| other.transformers.stream()
+							.anyMatch(components::contains)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Context of the current thread for the target type of the transformation
+	private TransformationContext contextOf(
+			final FileTransformation transformation) {
+		return workerContexts.get().get(transformation.targetType);
+	}
+
+	// The deserializer is the same for all target types
+	private TransformationContext firstContext() {
+		return workerContexts.get().values().iterator().next();
+	}
+
+	/**
+	 * The type of the source variability artifacts, used to label results and
+	 * cached outputs.
+	 *
+	 * @return the source type
+	 */
+	protected abstract String getSourceType();
+
+	/**
+	 * The types the variability artifacts are transformed into. For more than
+	 * one target type, each model is transformed into the pivot model once.
+	 *
+	 * @return the target types, duplicates are ignored
+	 */
+	protected abstract List<String> getTargetTypes();
+
+	/**
+	 * Sets the (de-)serializer and the transformers of the given context, which
+	 * is owned by the calling worker thread. Called once on the main thread to
+	 * verify the components, and once for every worker thread.
+	 *
+	 * @param context    the context of the worker thread
+	 * @param targetType the target type of the context
+	 * @return 0 on success, an error code otherwise
+	 */
+	abstract int initializeComponents(TransformationContext context,
+			String targetType);
+
+	/**
+	 * Main class of the worker processes of the isolation mode, see --isolate.
+	 * Workers are invoked with {@link #getWorkerArguments()}, the source and
+	 * target path and the options of this command.
+	 *
+	 * @return the main class, null if the command does not support isolation
+	 */
+	Class<?> getWorkerMainClass() {
+		return null;
+	}
+
+	/**
+	 * Leading arguments of the worker processes of the isolation mode, e.g., a
+	 * subcommand and the source and target types.
+	 *
+	 * @return the leading arguments
+	 */
+	List<String> getWorkerArguments() {
+		return List.of();
+	}
+
+	/**
+	 * Whether the components of each worker thread are distinct instances,
+	 * such that models can be transformed in parallel.
+	 *
+	 * @return true if --jobs may exceed 1
+	 */
+	boolean isParallelizable() {
+		return true;
+	}
+
+	/**
+	 * IDs and versions of the plugins providing the components of the given
+	 * context, which identify the outputs cached with --cache.
+	 *
+	 * @param context the context of a target type
+	 * @return the version of each plugin by its ID, in order of use, or null if
+	 *         the plugins cannot be identified
+	 */
+	Map<String, String> getPluginVersions(TransformationContext context) {
+		Map<String, String> versions = new LinkedHashMap<>();
+		for (IPlugin plugin : context.plugins) {
+			versions.put(plugin.getId(), plugin.getVersion());
+		}
+		return versions;
+	}
+
+	boolean isBenchmarking() {
+		return Objects.nonNull(benchmarks);
+	}
+
+	private int initializeTransformations(TransformationContext context,
+			String targetType) {
+		int init = initializeComponents(context, targetType);
+		if (init != 0) {
+			return init;
+		}
+
+		if (inPlaceRoundtrip || reverseTransformation) {
+			// Add return trip to queue
+			context.transformers
+					.addAll(context.transformers.reversed());
+		}
+
+		if (skipSerialization) {
+			context.serializer = mock(ISerializer.class);
+			LOGGER.info("Using mock serializer, won't write target model!");
+		}
+
+		LOGGER.info("Scheduled transformation order: %s",
+				context.transformers);
+
+		return 0;
+	}
+
+	private List<String> getFileExtensions() {
+		List<String> extensions = new ArrayList<>();
+		for (Object elem : firstContext().deserializer.fileExtensions()) {
+			extensions.add((String) elem);
+		}
+		return extensions;
+	}
+
+	private Integer transformDirectory() throws IOException,
+			NotSupportedVariabilityTypeException, TransformationException {
+		List<String> extensions = getFileExtensions();
+		LOGGER.debug(String.format("Collect files of type %s...",
+				toStringList(extensions)));
+		Iterator<Path> files;
+		if (recursive && schedule != BatchScheduler.Order.LONGEST_FIRST) {
+			// Transform while walking, in the order the files are found
+			LOGGER.debug("Streaming files of all subdirectories...");
+			files = TraVarTFileUtils.walkFiles(sourcePath, extensions);
+			if (Objects.nonNull(selectedShard)) {
+				files = Iterators.filter(files, this::isInShard);
+			}
+		} else if (recursive) {
+			// Scheduling requires all files upfront
+			List<Path> found = new ArrayList<>();
+			TraVarTFileUtils.walkFiles(sourcePath, extensions)
+					.forEachRemaining(found::add);
+			found.removeIf(file -> !isInShard(file));
+			addToProgressTotal(found.size());
+			files = scheduleFiles(found).iterator();
+		} else {
+			List<Path> found = new ArrayList<>();
+			for (String extension : extensions) {
+				Set<Path> filesFound = TraVarTFileUtils.getPathSet(sourcePath,
+						extension);
+				found.addAll(filesFound);
+				LOGGER.debug(String.format(
+						"%d files with extension %s found...",
+						filesFound.size(), extension));
+			}
+			found.removeIf(file -> !isInShard(file));
+			List<Path> scheduled = scheduleFiles(found);
+			LOGGER.debug(String.format("%d files to transform...",
+					scheduled.size()));
+			addToProgressTotal(scheduled.size());
+			files = scheduled.iterator();
+		}
+		return transformFiles(files);
+	}
+
+	private Integer transformFiles(final Iterator<Path> files)
+			throws IOException, NotSupportedVariabilityTypeException,
+			TransformationException {
+		if (isolatedWorkers > 0) {
+			return transformDirectoryIsolated(files);
+		}
+		if (pipeline && targetTypes.size() > 1) {
+			LOGGER.warn(
+					"Pipeline mode ignored for multiple target types, the target types of each model are transformed in parallel instead.");
+		} else if (pipeline) {
+			return transformDirectoryPipelined(files);
+		}
+		if (jobs > 1) {
+			return transformDirectoryInParallel(files);
+		}
+		return new BatchRunner(strict).runSequentially(files,
+				this::transformSingleFile);
+	}
+
+	// Transforms the folder, then the models changed since the watch started
+	private Integer watchDirectory() throws IOException,
+			NotSupportedVariabilityTypeException, TransformationException {
+		// Outputs written while watching are not transformed again
+		List<Path> excluded = Stream
+				.of(targetPath, cacheDirectory, benchmarkResultsFile,
+						blacklistFile, progressFile)
+				.filter(Objects::nonNull).toList();
+		// Watch before the first pass, models changed meanwhile are not missed
+		DirectoryWatcher watcher = new DirectoryWatcher(sourcePath, recursive,
+				getFileExtensions(), watchDebounce, excluded);
+		return new WatchLoop(watcher, finished, timeout)
+				.run(this::transformDirectory, () -> {
+					// Changed models have to be transformed again, even if
+					// recorded
+					watching = true;
+					if (Objects.nonNull(rw)) {
+						// Results of the batch become visible while watching
+						rw.flush();
+					}
+					LOGGER.info(String.format(
+							"Watching %s for changed models...", sourcePath));
+				}, changed -> {
+					changed.removeIf(file -> !isInShard(file));
+					LOGGER.info(String.format("%d model(s) changed: %s",
+							changed.size(), changed));
+					addToProgressTotal(changed.size());
+					return transformFiles(
+							scheduleFiles(new ArrayList<>(changed)).iterator());
+				});
+	}
+
+	private boolean isInShard(final Path file) {
+		return Objects.isNull(selectedShard)
+				|| selectedShard.contains(sourcePath, file);
+	}
+
+	private List<Path> scheduleFiles(final List<Path> found) {
+		BatchScheduler scheduler = new BatchScheduler();
+		if (schedule == BatchScheduler.Order.LONGEST_FIRST) {
+			if (Objects.nonNull(timingFiles)) {
+				timingFiles.forEach(scheduler::addHistory);
+			}
+			// Timings of other target types hint at the cost of this session
+			scheduler.addHistory(benchmarkResultsFile);
+		}
+		List<ScheduledFile> scheduled = scheduler.schedule(found, schedule,
+				this::recordKey);
+		LOGGER.debug(String.format(
+				"Scheduled %d files %s, %d with recorded timings...",
+				scheduled.size(), schedule,
+				scheduled.stream().filter(ScheduledFile::recorded).count()));
+		return scheduled.stream().map(ScheduledFile::file).toList();
+	}
+
+	private Integer transformDirectoryInParallel(final Iterator<Path> files)
+			throws IOException, NotSupportedVariabilityTypeException,
+			TransformationException {
+		LOGGER.debug(String.format("Transforming with %d parallel workers...",
+				jobs));
+		BatchRunner runner = new BatchRunner(strict);
+		if (Objects.isNull(heapAdmission)) {
+			return runner.runInParallel(files, jobs, this::transformSingleFile);
+		}
+		return runner.runInParallel(files, jobs, file -> {
+			HeapAdmission.Ticket ticket;
+			try {
+				ticket = heapAdmission.acquire(file);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			try {
+				return transformSingleFile(file);
+			} finally {
+				ticket.close();
+			}
+		});
+	}
+
+	private Integer transformDirectoryIsolated(final Iterator<Path> files)
+			throws IOException, NotSupportedVariabilityTypeException,
+			TransformationException {
+		LOGGER.debug(String.format("Transforming with %d worker processes...",
+				isolatedWorkers));
+		if (pipeline || jobs > 1) {
+			LOGGER.warn(
+					"Isolation mode ignores --pipeline and --jobs, each worker process transforms one model at a time.");
+		}
+		if (Objects.nonNull(benchmarkResultsFile)
+				&& Objects.nonNull(benchmarks) && benchmarks.size() != 0) {
+			// Records are reported by the workers, but written here
+			initializeResultsWriter(loadSelectedBenchmarks());
+		}
+		if (Objects.isNull(workerPool)) {
+			workerPool = new WorkerPool(getWorkerMainClass(),
+					buildWorkerArguments(), WORKER_STARTUP_TIMEOUT);
+		}
+		return new BatchRunner(strict).runInParallel(files, isolatedWorkers,
+				this::transformIsolated);
+	}
+
+	private Integer transformDirectoryPipelined(final Iterator<Path> files)
+			throws IOException, NotSupportedVariabilityTypeException,
+			TransformationException {
+		LOGGER.debug(String.format(
+				"Transforming in pipeline mode with %d transformation worker(s)...",
+				jobs));
+		try (StagedPipeline<FileTransformation> stages = new StagedPipeline<>(
+				pipelineCapacity)) {
+			stages.addStage("deserialization", 1, t -> {
+				if (Objects.nonNull(heapAdmission)) {
+					// Released once the model left the pipeline
+					t.admission = heapAdmission.acquire(t.file);
+				}
+				return prepare(t) && deserialize(t);
+			});
+			stages.addStage("transformation", jobs, this::transform);
+			stages.addStage("serialization", 1, t -> {
+				if (serialize(t)) {
+					complete(t);
+				}
+				return true;
+			});
+			return new BatchRunner(strict).runPipelined(stages,
+					new Iterator<FileTransformation>() {
+
+						@Override
+						public boolean hasNext() {
+							return files.hasNext();
+						}
+
+						@Override
+						public FileTransformation next() {
+							return new FileTransformation(files.next(),
+									targetTypes.get(0));
+						}
+					}, t -> t.file, t -> {
+						if (Objects.nonNull(t.admission)) {
+							t.admission.close();
+						}
+						return t.getExitCode();
+					});
+		}
+	}
+
+	private Integer transformSingleFile(final Path file)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (targetTypes.size() > 1) {
+			return transformFannedOut(file);
+		}
+		FileTransformation transformation = new FileTransformation(file,
+				targetTypes.get(0));
+		if (prepare(transformation) && deserialize(transformation)
+				&& transform(transformation) && serialize(transformation)) {
+			complete(transformation);
+		}
+		return transformation.getExitCode();
+	}
+
+	// Deserializes the file and transforms it into the pivot model once, then
+	// transforms the pivot model into all target types in parallel
+	private Integer transformFannedOut(final Path file)
+			throws IOException, NotSupportedVariabilityTypeException {
+		List<FileTransformation> pending = new ArrayList<>();
+		int exitCode = 0;
+		for (String targetType : targetTypes) {
+			FileTransformation transformation = new FileTransformation(file,
+					targetType);
+			if (prepare(transformation)) {
+				pending.add(transformation);
+			} else {
+				exitCode = combineExitCodes(exitCode,
+						transformation.getExitCode());
+			}
+		}
+		if (pending.isEmpty()) {
+			return exitCode;
+		}
+
+		FileTransformation shared = new FileTransformation(file,
+				targetTypes.get(0));
+		shared.shared = true;
+		// Source plugin into UVL, nothing to do for UVL sources
+		int pivotSteps = firstContext().startUVL ? 0 : 1;
+		shared.bus = fanOutBus(pending, pivotSteps);
+		if (!deserialize(shared) || !transform(shared, pivotSteps)) {
+			if (Thread.currentThread().isInterrupted()) {
+				// Abandoned, nothing to record for the target types
+				return -1;
+			}
+			for (FileTransformation transformation : pending) {
+				transformation.result = shared.result;
+				insertBenchmarkDud(recordKey(file),
+						transformation.activated.size(), shared.result,
+						transformation.targetType);
+				recordOutcome(outcomeOf(shared.result));
+			}
+			return combineExitCodes(exitCode, shared.getExitCode());
+		}
+		// Transformers may modify their input, every target type but the last
+		// transforms its own copy of the pivot model
+		final String pivot = pending.size() > 1
+				? new UVLSerializer().serialize((FeatureModel) shared.model)
+				: null;
+
+		List<Callable<Integer>> targets = new ArrayList<>();
+		for (int i = 0; i < pending.size(); i++) {
+			FileTransformation transformation = pending.get(i);
+			transformation.step = shared.step;
+			transformation.deserializationTime = shared.deserializationTime;
+			transformation.fileSize = shared.fileSize;
+			transformation.modelFeatures = shared.modelFeatures;
+			transformation.modelConstraints = shared.modelConstraints;
+			boolean last = i == pending.size() - 1;
+			targets.add(() -> {
+				transformation.model = last ? shared.model
+						: new UVLDeserializer().deserialize(pivot,
+								UVLSerializer.UVL_FORMAT);
+				if (transform(transformation) && serialize(transformation)) {
+					complete(transformation);
+				}
+				return transformation.getExitCode();
+			});
+		}
+		try {
+			for (Future<Integer> target : fanOutExecutor.invokeAll(targets)) {
+				exitCode = combineExitCodes(exitCode, target.get());
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(
+					BatchRunner.rethrowWorkerFailure(e));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		return exitCode;
+	}
+
+	// Forwards the events of the shared stages to the benchmarks of all target
+	// types
+	private EventBus fanOutBus(final List<FileTransformation> targets,
+			final int pivotSteps) {
+		Map<EventBus, Boolean> buses = new LinkedHashMap<>();
+		for (FileTransformation target : targets) {
+			if (Objects.nonNull(target.bus)) {
+				// Whether the target type needs steps after the pivot model
+				buses.put(target.bus,
+						contextOf(target).transformers.size() > pivotSteps);
+			}
+		}
+		if (buses.isEmpty()) {
+			return null;
+		}
+		return new FanOutBus(buses,
+				targets.get(0).file.getFileName().toString());
+	}
+
+	// A hung thread outweighs a failure, which outweighs a success
+	private static int combineExitCodes(final int first, final int second) {
+		if (first == -999 || second == -999) {
+			return -999;
+		}
+		return Math.min(first, second);
+	}
+
+	// Activates benchmarks and checks whether the file should be skipped
+	private boolean prepare(final FileTransformation transformation)
+			throws IOException {
+		final Path file = transformation.file;
+		LOGGER.debug(String.format("Start transforming file %s...",
+				file.getFileName()));
+
+		if (Objects.nonNull(benchmarks) && benchmarks.size() != 0) {
+			LOGGER.debug(
+					"Benchmarking option non-null (%s), initializing event bus...",
+					benchmarks);
+			// Need to match and activate benchmarks
+			transformation.bus = new BenchmarkEventBus();
+			for (IBenchmark benchmark : loadSelectedBenchmarks()) {
+				benchmark.activateBenchmark(transformation.bus);
+				// Required to read results after transforming
+				transformation.activated.add(benchmark);
+			}
+			// If ResultsWriter is unset, initialize it
+			if (Objects.isNull(rw) && Objects.nonNull(benchmarkResultsFile)) {
+				initializeResultsWriter(transformation.activated);
+			}
+		}
+
+		if (isSkipped(file, transformation.targetType)) {
+			recordOutcome(ProgressReporter.Outcome.SKIPPED);
+			transformation.finish(-1);
+			return false;
+		}
+		if (Objects.nonNull(cache) && restoreFromCache(transformation)) {
+			recordOutcome(ProgressReporter.Outcome.COMPLETED);
+			transformation.finish(0);
+			return false;
+		}
+		return true;
+	}
+
+	// Reuses the cached output and record if the model did not change
+	private boolean restoreFromCache(final FileTransformation transformation)
+			throws IOException {
+		TransformationContext context = contextOf(transformation);
+		transformation.cacheKey = TransformationCache.computeKey(
+				transformation.file,
+				getCacheParameters(context, transformation.targetType));
+		Optional<TransformationCache.Entry> cached = cache
+				.lookup(getCacheNamespace(context), transformation.cacheKey);
+		if (cached.isEmpty()) {
+			return false;
+		}
+		if (!skipSerialization) {
+			if (Objects.isNull(cached.get().output())) {
+				return false;
+			}
+			try {
+				Files.copy(cached.get().output(),
+						resolveOutputPath(transformation),
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				// E.g., evicted by another worker meanwhile
+				LOGGER.debug(String.format(
+						"Unable to reuse cached output of %s, transforming it: %s",
+						transformation.file.getFileName(), e.getMessage()));
+				return false;
+			}
+		}
+		if (isWritingRecords()) {
+			Map<String, Object> record = new LinkedHashMap<>(
+					cached.get().record());
+			record.put(BenchmarkResultsWriter.FILE_NAME_COLUMN,
+					recordKey(transformation.file));
+			writeRecord(record);
+		}
+		System.out.println("Model did not change since it was cached, reusing "
+				+ transformation.file.getFileName() + "...");
+		return true;
+	}
+
+	// Everything besides the model determining the output of a transformation
+	private List<String> getCacheParameters(
+			final TransformationContext context, final String targetType) {
+		List<String> parameters = new ArrayList<>(List.of(sourceType,
+				targetType, strategy.name(),
+				"inplace-roundtrip=" + inPlaceRoundtrip,
+				"reverse-transformation=" + reverseTransformation,
+				"no-serialize=" + skipSerialization));
+		selectedBenchmarks.forEach(b -> parameters.add("benchmark=" + b.id()));
+		getPluginVersions(context).forEach(
+				(id, version) -> parameters.add("plugin=" + id + "@" + version));
+		return parameters;
+	}
+
+	private String getCacheNamespace(final TransformationContext context) {
+		return TransformationCache.namespace(
+				new ArrayList<>(getPluginVersions(context).keySet()));
+	}
+
+	// JDK 21 does not measure allocations of virtual threads, stages run on
+	// platform threads instead if a benchmark listens to them
+	private void initializeTimeoutExecutor() {
+		BenchmarkEventBus bus = new BenchmarkEventBus();
+		loadSelectedBenchmarks().forEach(b -> b.activateBenchmark(bus));
+		if (bus.hasListeners(AllocationEvent.class)) {
+			LOGGER.debug(
+					"Measuring allocations, running stages on platform threads...");
+			timeoutExecutor = TimeoutExecutor.onPlatformThreads();
+		} else {
+			timeoutExecutor = new TimeoutExecutor();
+		}
+	}
+
+	// Returns new instances of the selected benchmarks, sorted by ID
+	private List<IBenchmark> loadSelectedBenchmarks() {
+		return BenchmarkRegistry.createAll(selectedBenchmarks);
+	}
+
+	private boolean isSkipped(final Path file, final String targetType) {
+		if (Objects.nonNull(blacklistedNames)) {
+			LOGGER.debug("Is this file blacklisted?");
+			if (blacklistedNames.contains(recordKey(file))) {
+				System.out.println("Blacklisted file, skipping...");
+				return true;
+			}
+		}
+
+		if (Objects.nonNull(rw) && !watching) {
+			if (rw.entryAlreadyExists(recordKey(file), targetType)) {
+				System.out.println(
+						"Results writeback already has an entry for this file, skipping...");
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean deserialize(final FileTransformation transformation)
+			throws IOException {
+		TransformationContext context = contextOf(transformation);
+		final Path file = transformation.file;
+		LOGGER.debug("Attempting to deserizalize " + file.getFileName()
+				+ " with " + context.deserializer.toString());
+		try {
+			Stopwatch deserializerTimer = Stopwatch.createStarted();
+			transformation.model = callStage(transformation, "deserializer",
+					context.deserializer,
+					() -> context.deserializer.deserializeFromFile(file));
+			transformation.deserializationTime = TimeUnit.MICROSECONDS
+					.convert(deserializerTimer.stop().elapsed().abs());
+		} catch (InterruptedException e) {
+			abandon(transformation, "Deserializer");
+			return false;
+		} catch (Exception e) {
+			if (strict) {
+				throw new Error(e);
+			}
+			handleStageFailure(transformation, "Deserializer", e,
+					TransformationResult.FAILED_DESERIALIZATION,
+					TransformationResult.TIMEOUT_DESERIALIZATION);
+			return false;
+		}
+		return true;
+	}
+
+	private boolean transform(final FileTransformation transformation)
+			throws IOException {
+		return transform(transformation,
+				contextOf(transformation).transformers.size());
+	}
+
+	// Applies the scheduled transformation steps not applied yet, up to the
+	// given step
+	private boolean transform(final FileTransformation transformation,
+			final int untilStep) throws IOException {
+		TransformationContext context = contextOf(transformation);
+		final Path file = transformation.file;
+		// Toggles after every step, see below
+		boolean fromUVL = context.startUVL == (transformation.step % 2 == 0);
+		var transformationIterator = context.transformers.iterator();
+		var transformationIndex = 0;
+		LOGGER.info("Currently scheduled: " + context.transformers.size()
+				+ " transformation step(s)");
+		while (transformationIterator.hasNext()) {
+			transformationIndex++;
+			var transformer = transformationIterator.next();
+			if (transformationIndex <= transformation.step) {
+				// Already applied, e.g., the shared step into the pivot model
+				continue;
+			} else if (transformationIndex > untilStep) {
+				break;
+			}
+			LOGGER.info("Is current step intermediate? "
+					+ transformationIterator.hasNext());
+			if (!Objects.isNull(benchmarks)) {
+				AbstractBenchmarkingTransformer benchmarkingTransformer = (AbstractBenchmarkingTransformer) transformer;
+				if (!reverseTransformation
+						|| transformationIndex >= context.transformers
+								.size()) {
+					LOGGER.info(
+							"This step transformation will be benchmarked!");
+					benchmarkingTransformer.setBus(transformation.bus);
+					// FIXME Do not hard-code verbosity level
+					benchmarkingTransformer.setVerbosity(Level.TRACE);
+				} else {
+					LOGGER.info(
+							"This step transformation won't be benchmarked, non-reverse transformation with --reverse-transformation set!");
+				}
+			}
+			Callable<Object> prospectiveModel;
+			final var intermediateModel = transformation.model;
+			final var intermediate = transformationIterator.hasNext();
+			try {
+				LOGGER.info("Will invoke transformer " + transformer.getClass()
+						+ " with STRATEGY = " + strategy);
+				if (fromUVL) {
+					prospectiveModel = () -> transformer.transform(
+							(FeatureModel) intermediateModel,
+							file.getFileName().toString(), strategy,
+							intermediate);
+				} else {
+					prospectiveModel = () -> transformer.transform(
+							intermediateModel, file.getFileName().toString(),
+							strategy, intermediate);
+				}
+				fromUVL = !fromUVL;
+				// If last transformation was from UVL to target type,
+				// next one has to be from target type to UVL
+				// Toggle after every transformation (pivot model principle)
+				// Consider timeout also during transformation
+				transformation.model = callStage(transformation,
+						"transformation", transformer, prospectiveModel);
+				transformation.step = transformationIndex;
+			} catch (InterruptedException e) {
+				abandon(transformation, "Transformer");
+				return false;
+			} catch (Exception e) {
+				if (strict) {
+					// Do not suppress after catching
+					throw new Error(e);
+				}
+				handleStageFailure(transformation, "Transformer", e,
+						TransformationResult.FAILED_TRANSFORMATION,
+						TransformationResult.TIMEOUT_TRANSFORMATION);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean serialize(final FileTransformation transformation)
+			throws IOException {
+		TransformationContext context = contextOf(transformation);
+		// Declare new final model variable (required for executor timeout)
+		final var modelToBeSerialized = transformation.model;
+
+		Path newPath = resolveOutputPath(transformation);
+
+		LOGGER.debug(String.format("Write transformed file to %s...",
+				newPath.toAbsolutePath()));
+		LOGGER.debug(
+				"Transformation might abort if serializer fails in strict mode!");
+
+		try {
+			// We don't care about the returned path
+			callStage(transformation, "serializer", context.serializer,
+					() -> context.serializer
+							.serializeToFile(modelToBeSerialized, newPath));
+		} catch (InterruptedException e) {
+			abandon(transformation, "Serializer");
+			return false;
+		} catch (Exception e) {
+			if (strict) {
+				// Do not suppress after catching
+				throw new Error(e);
+			}
+			handleStageFailure(transformation, "Serializer", e,
+					TransformationResult.FAILED_SERIALIZATION,
+					TransformationResult.TIMEOUT_SERIALIZATION);
+			return false;
+		}
+		// The serialized model is not needed anymore
+		transformation.model = null;
+		transformation.outputPath = newPath;
+		return true;
+	}
+
+	private Path resolveOutputPath(final FileTransformation transformation)
+			throws IOException {
+		return resolveTargetDirectory(transformation.file)
+				.resolve(transformation.file.getFileName()
+						+ contextOf(transformation).serializer
+								.getFileExtension());
+	}
+
+	// Mirrors the subdirectory of the file in the source folder, such that
+	// equally named models of different subdirectories do not collide
+	private Path resolveTargetDirectory(final Path file) throws IOException {
+		Path subdirectory = relativeDirectory(file);
+		if (Objects.isNull(subdirectory)) {
+			return targetPath;
+		}
+		Path directory = targetPath.resolve(subdirectory);
+		Files.createDirectories(directory);
+		return directory;
+	}
+
+	// Subdirectory of the file relative to the source folder, null if the
+	// file is not in a subdirectory
+	private Path relativeDirectory(final Path file) {
+		Path source = sourcePath.toAbsolutePath().normalize();
+		Path parent = file.toAbsolutePath().normalize().getParent();
+		if (!Files.isDirectory(source) || Objects.isNull(parent)
+				|| !parent.startsWith(source) || parent.equals(source)) {
+			return null;
+		}
+		return source.relativize(parent);
+	}
+
+	// Key of the file in the results file, the blacklist and the timings.
+	// Models in subdirectories are keyed by their path relative to the source
+	// folder, like their outputs, others by their name as in earlier sessions
+	private String recordKey(final Path file) {
+		String name = file.getFileName().toString();
+		Path subdirectory = relativeDirectory(file);
+		if (Objects.isNull(subdirectory)) {
+			return name;
+		}
+		return subdirectory.resolve(name).toString().replace(File.separatorChar,
+				'/');
+	}
+
+	// Runs a stage, measuring its allocations if a benchmark listens to them
+	private <T> T callStage(final FileTransformation transformation,
+			final String stage, final Object component, final Callable<T> task)
+			throws ExecutionException, StageTimeoutException,
+			InterruptedException, IOException {
+		if (!BenchmarkEventBus.isListening(transformation.bus,
+				AllocationEvent.class)) {
+			return callTimedStage(transformation, stage, component, task);
+		}
+		// Allocations are only known to the thread executing the stage
+		final long[] allocated = {-1};
+		T result = callTimedStage(transformation, stage, component, () -> {
+			long before = allocatedBytes();
+			try {
+				return task.call();
+			} finally {
+				long after = allocatedBytes();
+				if (before >= 0 && after >= 0) {
+					allocated[0] = after - before;
+				}
+			}
+		});
+		Phase phase = phaseOf(stage);
+		int features = result instanceof FeatureModel model
+				? statistics.getVariabilityElementsCount(model)
+				: -1;
+		transformation.bus.post(new AllocationEvent(Instant.now(),
+				transformation.file.getFileName().toString(),
+				transformation.hashCode(), phase,
+				phase == Phase.TRANSFORMATION ? transformation.step + 1 : 0,
+				allocated[0], features));
+		return result;
+	}
+
+	// Bytes allocated by the current thread, -1 if not supported, e.g., for
+	// virtual threads
+	private static long allocatedBytes() {
+		if (ManagementFactory
+				.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+				&& threads.isThreadAllocatedMemoryEnabled()) {
+			return threads.getCurrentThreadAllocatedBytes();
+		}
+		return -1;
+	}
+
+	// Each plugin and transformation step gets its own cost model
+	private static String adaptiveTimeoutKey(final String stage,
+			final Object component) {
+		return stage + "_" + component.getClass().getName();
+	}
+
+	// Learns from earlier sessions where their results describe the input of
+	// a stage. Only the deserializer qualifies, its input is the file alone;
+	// the transformation steps and the serializer learn within the session
+	private void seedAdaptiveTimeouts() {
+		String key = adaptiveTimeoutKey("deserializer",
+				firstContext().deserializer);
+		List<Path> resultsFiles = new ArrayList<>();
+		if (Objects.nonNull(timingFiles)) {
+			resultsFiles.addAll(timingFiles);
+		}
+		resultsFiles.add(benchmarkResultsFile);
+		for (Path resultsFile : resultsFiles) {
+			int recorded = adaptiveTimeouts.addHistory(resultsFile, key,
+					"deserializationTime", TimeUnit.MICROSECONDS,
+					this::deserializerFeatures);
+			if (recorded > 0) {
+				LOGGER.debug(String.format(
+						"Seeded adaptive timeouts with %d deserializations of %s...",
+						recorded, resultsFile));
+			}
+		}
+	}
+
+	// Features of a recorded model before deserialization, null if the model
+	// is not part of this session
+	private double[] deserializerFeatures(final String key) {
+		Path file = sourcePath;
+		if (!Files.isRegularFile(sourcePath)) {
+			file = sourcePath.resolve(key);
+		} else if (!sourcePath.getFileName().toString().equals(key)) {
+			return null;
+		}
+		try {
+			return Files.isRegularFile(file)
+					? new double[]{Files.size(file), 0, 0}
+					: null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	// Runs a stage under the fixed or the adaptive timeout
+	private <T> T callTimedStage(final FileTransformation transformation,
+			final String stage, final Object component, final Callable<T> task)
+			throws ExecutionException, StageTimeoutException,
+			InterruptedException, IOException {
+		Phase phase = phaseOf(stage);
+		int step = phase == Phase.TRANSFORMATION ? transformation.step + 1 : 0;
+		if (Objects.isNull(adaptiveTimeouts)) {
+			long begin = postPhaseBegin(transformation, phase, step);
+			T result = timeoutExecutor.call(stage, task, timeout,
+					TimeUnit.SECONDS);
+			long end = postPhaseEnd(transformation, phase, step);
+			recordStageLatency(transformation, stage, component, end - begin);
+			return result;
+		}
+		if (transformation.fileSize < 0) {
+			transformation.fileSize = Files.size(transformation.file);
+		}
+		String key = adaptiveTimeoutKey(stage, component);
+		double[] features = {transformation.fileSize,
+				transformation.modelFeatures, transformation.modelConstraints};
+		long timeoutMillis = adaptiveTimeouts.getTimeoutMillis(key, features);
+		LOGGER.debug(String.format("Timeout of %s for %s: %d ms", stage,
+				transformation.file.getFileName(), timeoutMillis));
+		long begin = postPhaseBegin(transformation, phase, step);
+		T result = timeoutExecutor.call(stage, task, timeoutMillis,
+				TimeUnit.MILLISECONDS);
+		long elapsed = postPhaseEnd(transformation, phase, step) - begin;
+		adaptiveTimeouts.record(key, elapsed, features);
+		recordStageLatency(transformation, stage, component, elapsed);
+		if (result instanceof FeatureModel model) {
+			// Describes the input of the next stage
+			postPhaseBegin(transformation, Phase.STATISTICS, 0);
+			transformation.modelFeatures = statistics
+					.getVariabilityElementsCount(model);
+			transformation.modelConstraints = statistics
+					.getConstraintsCount(model);
+			postPhaseEnd(transformation, Phase.STATISTICS, 0);
+		}
+		return result;
+	}
+
+	private static Phase phaseOf(final String stage) {
+		switch (stage) {
+			case "deserializer" :
+				return Phase.DESERIALIZATION;
+			case "serializer" :
+				return Phase.SERIALIZATION;
+			default :
+				return Phase.TRANSFORMATION;
+		}
+	}
+
+	// Posts the beginning of a phase to the benchmarks and returns its nano
+	// time, which is taken after posting
+	private static long postPhaseBegin(
+			final FileTransformation transformation, final Phase phase,
+			final int step) {
+		if (Objects.nonNull(transformation.bus)) {
+			transformation.bus.post(new PhaseBeginEvent(Instant.now(),
+					transformation.file.getFileName().toString(),
+					transformation.hashCode(), phase, step,
+					System.nanoTime()));
+		}
+		return System.nanoTime();
+	}
+
+	// Posts the end of a phase to the benchmarks and returns its nano time,
+	// which is taken before posting
+	private static long postPhaseEnd(final FileTransformation transformation,
+			final Phase phase, final int step) {
+		long end = System.nanoTime();
+		if (Objects.nonNull(transformation.bus)) {
+			transformation.bus.post(new PhaseEndEvent(Instant.now(),
+					transformation.file.getFileName().toString(),
+					transformation.hashCode(), phase, step, end));
+		}
+		return end;
+	}
+
+	private void recordStageLatency(final FileTransformation transformation,
+			final String stage, final Object component, final long elapsed) {
+		if (Objects.isNull(progress)) {
+			return;
+		}
+		// Without package, but including enclosing classes of plugins
+		String name = component.getClass().getName();
+		name = name.substring(name.lastIndexOf('.') + 1);
+		// Each transformation step is reported separately
+		progress.recordStage("transformation".equals(stage)
+				? String.format("%s %d (%s)", stage, transformation.step + 1,
+						name)
+				: String.format("%s (%s)", stage, name), elapsed);
+	}
+
+	private void recordOutcome(final ProgressReporter.Outcome outcome) {
+		if (Objects.nonNull(progress)) {
+			progress.recordOutcome(outcome);
+		}
+	}
+
+	private static ProgressReporter.Outcome outcomeOf(
+			final TransformationResult result) {
+		if (result == TransformationResult.SUCCESS) {
+			return ProgressReporter.Outcome.COMPLETED;
+		}
+		return result.name().startsWith("TIMEOUT")
+				? ProgressReporter.Outcome.TIMED_OUT
+				: ProgressReporter.Outcome.FAILED;
+	}
+
+	// Adds the given number of files, for each target type, to the total
+	private void addToProgressTotal(final int files) {
+		if (Objects.nonNull(progress)) {
+			progress.addTotal((long) files * targetTypes.size());
+		}
+	}
+
+	// Reports benchmarks of a successfully transformed file
+	private void complete(final FileTransformation transformation)
+			throws IOException {
+		for (IBenchmark benchmark : transformation.activated) {
+			System.out.println("Benchmark " + benchmark.getId() + " reports: "
+					+ benchmark.getResults().toString());
+		}
+
+		// If ResultsWriter is set, write results to CSV file
+		if (isWritingRecords() || Objects.nonNull(transformation.cacheKey)) {
+			Map<String, Object> record = new LinkedHashMap<>();
+			record.put(BenchmarkResultsWriter.FILE_NAME_COLUMN,
+					recordKey(transformation.file));
+			record.put(BenchmarkResultsWriter.TARGET_TYPE_COLUMN,
+					transformation.targetType);
+			record.put("result", transformation.result);
+			record.put("deserializationTime",
+					transformation.deserializationTime);
+			for (IBenchmark bench : transformation.activated) {
+				for (int i = 0; i < bench.getResultsHeader().size(); i++) {
+					LOGGER.debug("Now writing benchmark result for "
+							+ bench.getId());
+					record.put((String) bench.getResultsHeader().get(i),
+							bench.getResults().get(i));
+				}
+			}
+			if (isWritingRecords()) {
+				writeRecord(record);
+			}
+			if (Objects.nonNull(transformation.cacheKey)) {
+				storeInCache(transformation, record);
+			}
+		}
+		transformation.finish(0);
+		recordOutcome(ProgressReporter.Outcome.COMPLETED);
+	}
+
+	private void storeInCache(final FileTransformation transformation,
+			final Map<String, Object> record) {
+		try {
+			cache.store(getCacheNamespace(contextOf(transformation)),
+					transformation.cacheKey, transformation.outputPath, record);
+		} catch (IOException e) {
+			// The transformation succeeded nevertheless
+			LOGGER.warn(String.format("Unable to cache output of %s: %s",
+					transformation.file.getFileName(), e.getMessage()));
+		}
+	}
+
+	// Worker side of the isolation mode, transforms the models sent by the
+	// parent process until stdin is closed
+	private Integer serveAsIsolatedWorker() throws IOException,
+			NotSupportedVariabilityTypeException {
+		BufferedReader models = new BufferedReader(
+				new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		WorkerProcess.reportReady(System.out);
+		String line;
+		while ((line = models.readLine()) != null) {
+			if (line.isBlank()) {
+				continue;
+			}
+			WorkerProcess.reportDone(System.out,
+					transformSingleFile(Path.of(line)));
+		}
+		return 0;
+	}
+
+	// Parent side of the isolation mode, dispatches the file to the worker
+	// process of the current thread
+	private Integer transformIsolated(final Path file) throws IOException {
+		if (targetTypes.stream()
+				.allMatch(targetType -> isSkipped(file, targetType))) {
+			targetTypes.forEach(
+					t -> recordOutcome(ProgressReporter.Outcome.SKIPPED));
+			return -1;
+		}
+		WorkerProcess worker = null;
+		try {
+			worker = workerPool.acquire();
+			// Deserialization, each transformation step and serialization,
+			// per target type
+			long stages = (firstContext().transformers.size() + 2)
+					* targetTypes.size();
+			long stageTimeout = adaptiveTimeout ? Math.max(timeout, maxTimeout)
+					: timeout;
+			WorkerProcess.Reply reply = worker.transform(file,
+					TimeUnit.SECONDS.toMillis(stageTimeout * stages)
+							+ WORKER_GRACE_PERIOD_MILLIS);
+			for (Map<String, String> record : reply.records()) {
+				writeRecord(new LinkedHashMap<>(record));
+			}
+			// Stages run in the worker, only the outcome is known here
+			ProgressReporter.Outcome outcome = reply.exitCode() == 0
+					? ProgressReporter.Outcome.COMPLETED
+					: reply.exitCode() == -999
+							? ProgressReporter.Outcome.TIMED_OUT
+							: ProgressReporter.Outcome.FAILED;
+			targetTypes.forEach(t -> recordOutcome(outcome));
+			if (reply.exitCode() == -999) {
+				// The worker might be stuck with a hung thread, replace it
+				LOGGER.warn(
+						"Worker process reports a timeout, replacing it...");
+				workerPool.discard(worker);
+				return -1;
+			}
+			return reply.exitCode();
+		} catch (TimeoutException | IOException e) {
+			LOGGER.error(String.format(
+					"Worker process failed on %s, replacing it: %s",
+					file.getFileName(), e.getMessage()));
+			boolean timedOut = e instanceof TimeoutException;
+			if (timedOut) {
+				appendToBlacklist(file);
+			}
+			workerPool.discard(worker);
+			for (String targetType : targetTypes) {
+				insertBenchmarkDud(recordKey(file), 0,
+						timedOut ? TransformationResult.TIMEOUT_UNKNOWN
+								: TransformationResult.FAILED_UNKNOWN,
+						targetType);
+				recordOutcome(timedOut ? ProgressReporter.Outcome.TIMED_OUT
+						: ProgressReporter.Outcome.FAILED);
+			}
+			return -1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			workerPool.discard(worker);
+			return -1;
+		}
+	}
+
+	// Repeats the options of this command, such that the worker transforms
+	// exactly like this process would
+	private List<String> buildWorkerArguments() {
+		List<String> args = new ArrayList<>();
+		if (LOGGER.isDebugEnabled()) {
+			args.add("--verbose");
+		}
+		args.addAll(getWorkerArguments());
+		args.addAll(List.of(sourcePath.toString(), targetPath.toString(),
+				"--strategy", strategy.name(), "--timeout",
+				Long.toString(timeout), "--isolated-worker"));
+		if (Objects.nonNull(benchmarks) && benchmarks.size() != 0) {
+			args.add("--benchmark");
+			args.add(String.join(",", benchmarks));
+		}
+		if (Objects.nonNull(blacklistFile)) {
+			// Workers add hung files to the blacklist themselves
+			args.add("--blacklist-file");
+			args.add(blacklistFile.toString());
+		}
+		if (adaptiveTimeout) {
+			// Each worker learns its own cost models
+			args.addAll(List.of("--adaptive-timeout", "--timeout-safety-factor",
+					Double.toString(timeoutSafetyFactor), "--max-timeout",
+					Long.toString(maxTimeout)));
+		}
+		if (Objects.nonNull(cacheDirectory)) {
+			// Invalidation was already done by this process
+			args.addAll(List.of("--cache", cacheDirectory.toString(),
+					"--cache-size", Long.toString(cacheSize)));
+		}
+		if (inPlaceRoundtrip) {
+			args.add("--inplace-roundtrip");
+		}
+		if (skipSerialization) {
+			args.add("--no-serialize");
+		}
+		if (reverseTransformation) {
+			args.add("--reverse-transformation");
+		}
+		return args;
+	}
+
+	private boolean isWritingRecords() {
+		return Objects.nonNull(rw) || isolatedWorker;
+	}
+
+	// Workers of the isolation mode report records to their parent process
+	private void writeRecord(final Map<String, Object> record)
+			throws IOException {
+		if (isolatedWorker) {
+			WorkerProcess.reportRecord(System.out, record);
+		} else if (Objects.nonNull(rw)) {
+			rw.writeResults(record);
+		}
+	}
+
+	// Workers race to initialize the writer with their activated benchmarks
+	private synchronized void initializeResultsWriter(
+			final List<IBenchmark> activated) throws IOException {
+		if (Objects.isNull(rw)) {
+			rw = new BenchmarkResultsWriter(activated, benchmarkResultsFile,
+					asyncWriteback ? writebackFlushInterval : 0);
+		}
+	}
+
+	// The batch was interrupted, e.g., by the deadline of a serve job. Not a
+	// failure of the model, so nothing is recorded for it
+	private void abandon(final FileTransformation transformation,
+			final String stage) {
+		Thread.currentThread().interrupt();
+		LOGGER.warn(String.format("%s interrupted, abandoning %s...", stage,
+				transformation.file.getFileName()));
+		transformation.finish(-1);
+	}
+
+	// Report the failed stage in unstrict mode, sets the result of the file
+	private void handleStageFailure(final FileTransformation transformation,
+			final String stage, final Exception e,
+			final TransformationResult failure,
+			final TransformationResult timedOut) throws IOException {
+		final Path file = transformation.file;
+		System.err.println(stage + " failed! " + file.getFileName()
+				+ ", unstrict mode -> continue with next model in batch");
+		System.err.println(stage + " reports: "
+				+ e.getClass().descriptorString() + " with " + e.getMessage()
+				+ ", caused by");
+		e.printStackTrace();
+		TransformationResult result = failure;
+		if (e instanceof StageTimeoutException timeoutException) {
+			if (timeoutException.isHung()) {
+				LOGGER.error(
+						"Worker thread is misbehaving, still running despite timeout + interruption!");
+				LOGGER.error(
+						"Cannot ensure correctness of benchmarks due to hung thread! Aborting.");
+				LOGGER.error("Consider using a blacklist.");
+				appendToBlacklist(file);
+			}
+			result = timedOut;
+		}
+		transformation.result = result;
+		if (!transformation.shared) {
+			// Shared stages write duds for each target type themselves
+			insertBenchmarkDud(recordKey(file),
+					transformation.activated.size(), result,
+					transformation.targetType);
+			recordOutcome(outcomeOf(result));
+		}
+		transformation.finish(result == timedOut ? -999 : -1);
+	}
+
+	// Parallel workers may report hung threads at the same time
+	private synchronized void appendToBlacklist(final Path file)
+			throws IOException {
+		if (Objects.nonNull(blacklistFile) && blacklistFile.toFile().exists()) {
+			LOGGER.warn(
+					"Blacklist file was given, adding offending file to blacklist...");
+			String key = recordKey(file);
+			Files.write(blacklistFile, List.of(key), StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			blacklistedNames.add(key);
+		}
+	}
+
+	// FIXME Do not duplicate code already used for normal writeback
+	// See code above for more details
+	// Insert dud to writeback csv file if -wb set
+	private void insertBenchmarkDud(String fileName, int nBlanks,
+			TransformationResult result, String targetType) throws IOException {
+		if (isWritingRecords()) {
+			LOGGER.debug(String.format(
+					"Writing dud (= blank CSV entry) for %s...", fileName));
+			Map<String, Object> record = new LinkedHashMap<>();
+			record.put(BenchmarkResultsWriter.FILE_NAME_COLUMN, fileName);
+			record.put(BenchmarkResultsWriter.TARGET_TYPE_COLUMN, targetType);
+			record.put("result", result);
+			writeRecord(record);
+		}
+	}
+}
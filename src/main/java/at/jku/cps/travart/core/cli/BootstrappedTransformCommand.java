@@ -1,135 +1,175 @@
 package at.jku.cps.travart.core.cli;
 
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Comparator;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.Callable;
+import java.security.CodeSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import at.jku.cps.travart.core.basic.UVL;
+import at.jku.cps.travart.core.common.Format;
 import at.jku.cps.travart.core.common.IDeserializer;
 import at.jku.cps.travart.core.common.IModelTransformer;
 import at.jku.cps.travart.core.common.ISerializer;
-import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
-import at.jku.cps.travart.core.exception.TransformationException;
-import at.jku.cps.travart.core.io.TraVarTFileUtils;
-import de.vill.model.FeatureModel;
-import picocli.CommandLine;
+import at.jku.cps.travart.core.transformation.AbstractBenchmarkingTransformer;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
-import picocli.CommandLine.Parameters;
 
-// TODO Implement features from main Transform command also in BootstrappedTransformCommand
-@Command(name = "transform", version = "0.0.1", 
+/**
+ * `transform` command of plugins bootstrapping the CLI, see
+ * {@link CliUtils#cliPluginDelegate}. Transforms with the components provided
+ * by the plugin, using the same batch engine as {@link TransformCommand}.
+ */
+@SuppressWarnings("rawtypes")
+@Command(name = "transform", version = "0.0.1",
 	description = "Transforms the given variability artifacts into another type. "
 		+ "When run over a plugin, target type is limited to the transformer provided by the plugin; "
 		+ "i.e., from/to UVL from/to the format supported by the plugin.")
-public class BootstrappedTransformCommand implements Callable<Integer> {
-	private static final Logger LOGGER = LogManager.getLogger(TransformCommand.class);
+public class BootstrappedTransformCommand extends AbstractTransformCommand {
+	private static final Logger LOGGER = LogManager.getLogger(BootstrappedTransformCommand.class);
 
 	private static final String CORE_MODEL_UVL = "UVL";
 
-	@SuppressWarnings("unused")
-	private static String toStringList(final Iterable<String> fileExtensions) {
-		StringBuilder builder = new StringBuilder();
-		builder.append("{ ");
-		for (String extension : fileExtensions) {
-			builder.append(extension).append(",");
+	// Plugin ID and version of the jar of each transformer class, read once
+	private static final ClassValue<Optional<Map<String, String>>> PLUGIN_VERSIONS = new ClassValue<>() {
+		@Override
+		protected Optional<Map<String, String>> computeValue(final Class<?> type) {
+			return identifyPlugin(type);
 		}
-		builder.deleteCharAt(builder.lastIndexOf(","));
-		builder.append(" }");
-		return builder.toString();
-	}
-
-	@Parameters(index = "0", description = "The source path to the variability artifact to transform. Folders are not supported.")
-	private Path sourcePath;
+	};
 
-	@Parameters(index = "1", description = "The output path to which the variability artifact is transformed.")
-	private Path targetPath;
-	
 	@Option(names = {
 			"--from-uvl"}, description = "If given, UVL will be set as the source type, i.e., the model will be transformed from UVL into the plugin's target type.")
 	private boolean fromUvl = false;
 
-	private IDeserializer bootstrappedDeserializer;
-	private ISerializer bootstrappedSerializer;
-	private final IModelTransformer bootstrappedTransformer;
-	
+	private final Supplier<? extends IDeserializer<?>> bootstrappedDeserializers;
+	private final Supplier<? extends ISerializer<?>> bootstrappedSerializers;
+	private final Supplier<? extends IModelTransformer<?>> bootstrappedTransformers;
+	// Set if the plugin provided single instances, see isParallelizable()
+	private final boolean singleInstances;
+
 	private final UVL uvlFacility = new UVL();
 
 	public BootstrappedTransformCommand(IDeserializer bDeserializer, ISerializer bSerializer,
 			IModelTransformer bTransformer) {
-		this.bootstrappedDeserializer = bDeserializer;
-		this.bootstrappedSerializer = bSerializer;
-		this.bootstrappedTransformer = bTransformer;
+		this(() -> bDeserializer, () -> bSerializer, () -> bTransformer, true);
+	}
+
+	/**
+	 * Creates the command with suppliers of the plugin's components. Each call
+	 * of a supplier must return a new instance, such that models can be
+	 * transformed in parallel (see --jobs).
+	 *
+	 * @param bDeserializers supplier of the plugin's deserializer
+	 * @param bSerializers   supplier of the plugin's serializer
+	 * @param bTransformers  supplier of the plugin's transformer
+	 */
+	public BootstrappedTransformCommand(Supplier<? extends IDeserializer<?>> bDeserializers,
+			Supplier<? extends ISerializer<?>> bSerializers, Supplier<? extends IModelTransformer<?>> bTransformers) {
+		this(bDeserializers, bSerializers, bTransformers, false);
+	}
+
+	private BootstrappedTransformCommand(Supplier<? extends IDeserializer<?>> bDeserializers,
+			Supplier<? extends ISerializer<?>> bSerializers, Supplier<? extends IModelTransformer<?>> bTransformers,
+			boolean singleInstances) {
+		this.bootstrappedDeserializers = bDeserializers;
+		this.bootstrappedSerializers = bSerializers;
+		this.bootstrappedTransformers = bTransformers;
+		this.singleInstances = singleInstances;
 	}
 
 	@Override
-	public Integer call() throws Exception {
-		// Replace deserializer/serializer based on fromUvl
+	protected String getSourceType() {
 		if (fromUvl) {
-			bootstrappedDeserializer = uvlFacility.getDeserializer();
-		} else {
-			bootstrappedSerializer = uvlFacility.getSerializer();
+			return CORE_MODEL_UVL;
 		}
-		// Run transformations
-		LOGGER.debug("Starting transformation of variability artifacts...");
-		try {
-			if (Files.isRegularFile(sourcePath)) {
-				return transformSingleFile(sourcePath);
-			}
-			return transformDirectory();
-		} catch (IOException | NotSupportedVariabilityTypeException ex) {
-			LOGGER.error("Error while handling files...");
-			LOGGER.error(ex.toString());
-			throw new TransformationException(ex);
+		for (Object format : bootstrappedDeserializers.get().supportedFormats()) {
+			return ((Format) format).name();
 		}
+		return "UNKNOWN";
 	}
-	
-	private Integer transformDirectory() throws IOException, NotSupportedVariabilityTypeException {
-		Set<Path> files = new TreeSet<>(Comparator.comparingLong((Path p) -> {
-		try {
-			return Files.size(p);
-		} catch (IOException e) {
-			return Long.MAX_VALUE;
-		}}).thenComparing(Comparator.comparing(Path::toString)));
-		int counter = 0;
-		LOGGER.debug(String.format("Collect files of type %s...", toStringList(bootstrappedDeserializer.fileExtensions())));
-		for (Object elem : bootstrappedDeserializer.fileExtensions()) {
-			String extension = (String) elem;
-			Set<Path> filesFound = TraVarTFileUtils.getPathSet(sourcePath, extension);
-			files.addAll(filesFound);
-			LOGGER.debug(String.format("%d files with extension %s found...", filesFound.size(), extension));
-		}
-		LOGGER.debug(String.format("%d files to transform...", files.size()));
-		for (Path file : files) {
-			int result = transformSingleFile(file);
-			if (result != 0) {
-				LOGGER.error(String.format("Error during transformation of file %s...", file.getFileName()));
-				return result;
-			}
+
+	@Override
+	protected List<String> getTargetTypes() {
+		if (fromUvl) {
+			return List.of(bootstrappedSerializers.get().getFormat().name());
 		}
-		return 0;
+		return List.of(CORE_MODEL_UVL);
 	}
 
-	private Integer transformSingleFile(final Path file) throws IOException, NotSupportedVariabilityTypeException {
-		Object deserializedModel = bootstrappedDeserializer.deserializeFromFile(sourcePath);
-		
-		Object transformedModel = null;
+	@Override
+	int initializeComponents(TransformationContext context, String targetType) {
+		IModelTransformer transformer = bootstrappedTransformers.get();
+		if (isBenchmarking() && !(transformer instanceof AbstractBenchmarkingTransformer)) {
+			LOGGER.error("Benchmarks given, but the plugin's transformer does not support benchmarking!");
+			return 1;
+		}
+		// Replace deserializer/serializer based on fromUvl
 		if (fromUvl) {
-			transformedModel = bootstrappedTransformer.transform((FeatureModel) deserializedModel);
+			context.deserializer = uvlFacility.getDeserializer();
+			context.serializer = bootstrappedSerializers.get();
+			context.startUVL = true;
 		} else {
-			transformedModel = bootstrappedTransformer.transform(deserializedModel);
+			context.deserializer = bootstrappedDeserializers.get();
+			context.serializer = uvlFacility.getSerializer();
 		}
-	
-		bootstrappedSerializer.serializeToFile(transformedModel, sourcePath);
-		
+		context.transformers.add(transformer);
 		return 0;
 	}
 
+	@Override
+	boolean isParallelizable() {
+		return !singleInstances;
+	}
+
+	@Override
+	Map<String, String> getPluginVersions(TransformationContext context) {
+		return PLUGIN_VERSIONS.get(context.transformers.getFirst().getClass())
+				.orElse(null);
+	}
+
+	// Plugin jars declare their ID and version in the manifest (see pf4j),
+	// other jars may at least declare the version of their implementation
+	private static Optional<Map<String, String>> identifyPlugin(final Class<?> type) {
+		String id = null;
+		String version = null;
+		try {
+			CodeSource source = type.getProtectionDomain().getCodeSource();
+			Path location = Objects.nonNull(source) ? Path.of(source.getLocation().toURI()) : null;
+			if (Objects.nonNull(location) && Files.isRegularFile(location)) {
+				try (JarFile jar = new JarFile(location.toFile())) {
+					Manifest manifest = jar.getManifest();
+					if (Objects.nonNull(manifest)) {
+						Attributes attributes = manifest.getMainAttributes();
+						id = attributes.getValue("Plugin-Id");
+						version = attributes.getValue("Plugin-Version");
+					}
+				}
+			}
+		} catch (IOException | URISyntaxException | RuntimeException e) {
+			LOGGER.debug("Unable to read the manifest of %s: %s", type.getName(), e.getMessage());
+		}
+		Package plugin = type.getPackage();
+		if (Objects.isNull(version) && Objects.nonNull(plugin)) {
+			version = plugin.getImplementationVersion();
+		}
+		if (Objects.isNull(id) && Objects.nonNull(plugin)) {
+			id = Objects.requireNonNullElse(plugin.getImplementationTitle(), plugin.getName());
+		}
+		if (Objects.isNull(id) || id.isEmpty() || Objects.isNull(version)) {
+			return Optional.empty();
+		}
+		return Optional.of(Map.of(id, version));
+	}
 }
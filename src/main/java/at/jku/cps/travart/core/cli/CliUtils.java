@@ -1,5 +1,7 @@
 package at.jku.cps.travart.core.cli;
 
+import java.util.function.Supplier;
+
 import at.jku.cps.travart.core.common.IDeserializer;
 import at.jku.cps.travart.core.common.IModelTransformer;
 import at.jku.cps.travart.core.common.ISerializer;
@@ -22,4 +24,24 @@ public class CliUtils {
 		int exitCode = new CommandLine(new BootstrappedTransformCommand(bootstrappedDeserializer, bootstrappedSerializer, bootstrappedTransformer)).execute(args);
 		return exitCode;
 	}
+
+	/**
+	 * Provides a generic CLI for plugins, like
+	 * {@link #cliPluginDelegate(String[], IModelTransformer, ISerializer, IDeserializer)}.
+	 * As every worker gets its own instances of the components, models of a
+	 * folder can be transformed in parallel (see --jobs).
+	 * 
+	 * @param args Pass through the parameters received by the plugin CLI
+	 * @param bootstrappedTransformers Supplier of new transformers of the calling plugin
+	 * @param bootstrappedSerializers Supplier of new serializers of the calling plugin
+	 * @param bootstrappedDeserializers Supplier of new deserializers of the calling plugin
+	 * @return the exit code of the command
+	 */
+	public static int cliPluginDelegate(String[] args, Supplier<? extends IModelTransformer<?>> bootstrappedTransformers,
+			Supplier<? extends ISerializer<?>> bootstrappedSerializers,
+			Supplier<? extends IDeserializer<?>> bootstrappedDeserializers) {
+		int exitCode = new CommandLine(new BootstrappedTransformCommand(bootstrappedDeserializers,
+				bootstrappedSerializers, bootstrappedTransformers)).execute(args);
+		return exitCode;
+	}
 }
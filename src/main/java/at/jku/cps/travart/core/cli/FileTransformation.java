@@ -0,0 +1,64 @@
+package at.jku.cps.travart.core.cli;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.eventbus.EventBus;
+
+import at.jku.cps.travart.core.batch.HeapAdmission;
+import at.jku.cps.travart.core.benchmarking.IBenchmark;
+
+/**
+ * State of a single model while it passes through the deserialization,
+ * transformation and serialization stages of {@link TransformCommand}. The
+ * stages may run on different threads, but never concurrently for the same
+ * model.
+ */
+@SuppressWarnings("rawtypes")
+final class FileTransformation {
+
+	final Path file;
+	final String targetType;
+	EventBus bus; // Initialize only if benchmarking is required
+	final List<IBenchmark> activated = new ArrayList<>();
+
+	Object model;
+	// Number of transformation steps already applied to the model
+	int step;
+	// Set for the stages shared by all target types, see --target-type
+	boolean shared;
+	long deserializationTime;
+	// Size of the file and the last feature model, see --adaptive-timeout
+	long fileSize = -1;
+	int modelFeatures;
+	int modelConstraints;
+	// Set if the output should be cached, see --cache
+	String cacheKey;
+	Path outputPath;
+	// Set while the model holds heap of the budget, see --heap-budget
+	HeapAdmission.Ticket admission;
+	TransformationResult result = TransformationResult.SUCCESS;
+
+	// Set once a stage failed or the file was skipped
+	private boolean done;
+	private int exitCode;
+
+	FileTransformation(final Path file, final String targetType) {
+		this.file = file;
+		this.targetType = targetType;
+	}
+
+	void finish(final int code) {
+		done = true;
+		exitCode = code;
+	}
+
+	boolean isDone() {
+		return done;
+	}
+
+	int getExitCode() {
+		return exitCode;
+	}
+}
@@ -0,0 +1,91 @@
+package at.jku.cps.travart.core.cli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.generator.FeatureModelGenerator;
+import at.jku.cps.travart.core.io.UVLSerializer;
+import de.vill.model.FeatureModel;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "generate", version = "0.0.1", description = "Generates a corpus of synthetic UVL feature models of controlled size and shape, e.g., for load and scaling tests of transformations.")
+public class GenerateCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(GenerateCommand.class);
+
+	@Parameters(index = "0", description = "The folder the generated models are written to. It is created if it does not exist.")
+	private Path targetPath;
+
+	@Option(names = {"-f",
+			"--features"}, split = ",", defaultValue = "100", description = "Number(s) of features of the generated models (comma-seperated), including the root. Defaults to 100.")
+	private List<Integer> featureCounts;
+
+	@Option(names = {"-n",
+			"--count"}, defaultValue = "1", description = "Number of models generated per number of features. Defaults to 1.")
+	private int count;
+
+	@Option(names = {
+			"--depth"}, defaultValue = "6", description = "Number of levels of the feature trees. Defaults to 6.")
+	private int depth;
+
+	@Option(names = {
+			"--or"}, defaultValue = "0.2", description = "Share of or groups. Defaults to 0.2.")
+	private double orShare;
+
+	@Option(names = {
+			"--alternative"}, defaultValue = "0.2", description = "Share of alternative groups. Defaults to 0.2.")
+	private double alternativeShare;
+
+	@Option(names = {
+			"--cardinality"}, defaultValue = "0.1", description = "Share of group cardinality groups. The remaining groups are optional or mandatory. Defaults to 0.1.")
+	private double cardinalityShare;
+
+	@Option(names = {
+			"--constraints"}, defaultValue = "0.1", description = "Number of cross-tree constraints (requires or excludes) per feature. Defaults to 0.1.")
+	private double constraintDensity;
+
+	@Option(names = {
+			"--seed"}, defaultValue = "0", description = "Seed of the first model, each further model uses the next seed. Equal parameters and seeds generate equal corpora. Defaults to 0.")
+	private long seed;
+
+	@Override
+	public Integer call() throws Exception {
+		if (count < 1) {
+			LOGGER.error("Number of models must be at least 1!");
+			return 6;
+		}
+		Files.createDirectories(targetPath);
+		UVLSerializer serializer = new UVLSerializer();
+		int generated = 0;
+		for (int features : featureCounts) {
+			FeatureModelGenerator generator;
+			try {
+				generator = new FeatureModelGenerator(features, depth, orShare,
+						alternativeShare, cardinalityShare, constraintDensity);
+			} catch (IllegalArgumentException e) {
+				LOGGER.error(e.getMessage());
+				return 6;
+			}
+			for (int i = 0; i < count; i++) {
+				FeatureModel model = generator.generate(seed + i);
+				Path file = targetPath.resolve(String.format("model_%d_%d%s",
+						features, i, serializer.getFileExtension()));
+				LOGGER.debug(String.format("Write generated model to %s...",
+						file));
+				serializer.serializeToFile(model, file);
+				generated++;
+			}
+		}
+		System.out.println(String.format("Generated %d models in %s.",
+				generated, targetPath));
+		return 0;
+	}
+}
@@ -0,0 +1,45 @@
+package at.jku.cps.travart.core.cli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.benchmarking.BenchmarkResultsMerger;
+import at.jku.cps.travart.core.benchmarking.BenchmarkResultsMerger.MergeSummary;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "merge-results", version = "0.0.1", description = "Merges the benchmark results files (see --write-benchmarks of the transform command) of several runs, e.g., of the shards of a corpus. Headers are reconciled and duplicate rows are dropped.")
+public class MergeResultsCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(MergeResultsCommand.class);
+
+	@Parameters(arity = "1..*", paramLabel = "<resultsFile>", description = "The results files to merge, in order.")
+	private List<Path> inputs;
+
+	@Option(names = {"-o",
+			"--output"}, required = true, description = "The merged results file. It may be one of the given results files, it is replaced once all files were read.")
+	private Path output;
+
+	@Override
+	public Integer call() throws Exception {
+		for (Path input : inputs) {
+			if (!Files.isRegularFile(input)) {
+				LOGGER.error("Results file " + input + " does not exist!");
+				return 1;
+			}
+		}
+		MergeSummary summary = BenchmarkResultsMerger.merge(inputs, output);
+		System.out.println(String.format(
+				"Merged %d rows of %d files into %s, dropped %d duplicate rows.",
+				summary.written(), summary.files(), output,
+				summary.duplicates()));
+		return 0;
+	}
+}
@@ -0,0 +1,146 @@
+package at.jku.cps.travart.core.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import at.jku.cps.travart.core.batch.JobServer;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "serve", version = "0.0.1", description = "Keeps TraVarT and its plugins running and executes transform and validate jobs sent over a local socket. The first line of a connection must be the token written to the --token-file on startup. Each job is a line of the arguments of the respective command, e.g., \"transform in.xml out -st FAKE -tt UVL\", answered by a line \"<n> done <exit code>\", \"<n> timeout\" or \"<n> error <message>\" with the number n of the job on the connection.")
+public class ServeCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LogManager
+			.getLogger(ServeCommand.class);
+
+	private static final int TOKEN_BYTES = 32;
+
+	// Commands which may be sent as jobs, never serve itself
+	private static final Map<String, Supplier<Object>> JOB_COMMANDS = Map
+			.of("transform", TransformCommand::new, "validate",
+					ValidateCommand::new);
+
+	@Option(names = {
+			"--socket"}, description = "Path of the Unix domain socket to listen on. If not given, a TCP socket on the loopback address is used, see --port.")
+	private Path socket;
+
+	@Option(names = {
+			"--port"}, defaultValue = "0", description = "Port of the loopback address to listen on if no --socket is given. Defaults to a free port, which is printed on startup.")
+	private int port;
+
+	@Option(names = {
+			"--token-file"}, description = "File the token is written to, readable by the current user only. Clients have to send its content as their first line. Defaults to the socket path with the suffix .token, or to ~/.travart/serve-<port>.token on TCP.")
+	private Path tokenFile;
+
+	@Option(names = {"-j",
+			"--jobs"}, description = "Number of jobs executed concurrently, further jobs are queued. Defaults to the number of available processors.")
+	private int jobs = Runtime.getRuntime().availableProcessors();
+
+	@Option(names = {
+			"--job-timeout"}, defaultValue = "300", description = "Timeout in seconds of a single job, including the time it was queued. A job exceeding its timeout is interrupted. Defaults to 300 seconds.")
+	private long jobTimeout;
+
+	@Override
+	public Integer call() throws Exception {
+		if (jobs < 1 || jobTimeout < 1 || port < 0 || port > 0xFFFF) {
+			LOGGER.error(
+					"The number of jobs and the job timeout must be positive, the port must be valid!");
+			return 1;
+		}
+		SocketAddress address = Objects.nonNull(socket)
+				? UnixDomainSocketAddress.of(socket)
+				: new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+		// Other local users must not be able to run jobs
+		byte[] secret = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(secret);
+		String token = HexFormat.of().formatHex(secret);
+		JobServer server = new JobServer(address, jobs, jobTimeout * 1000,
+				this::runJob, token);
+		if (Objects.isNull(tokenFile)) {
+			tokenFile = Objects.nonNull(socket)
+					? socket.resolveSibling(socket.getFileName() + ".token")
+					: Path.of(System.getProperty("user.home"), ".travart",
+							"serve-" + ((InetSocketAddress) server.getAddress())
+									.getPort() + ".token");
+		}
+		Path file = tokenFile;
+		// Removes the socket and token files when terminated, e.g., by SIGTERM
+		Thread shutdown = new Thread(() -> {
+			try {
+				server.close();
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to close server: " + e.getMessage());
+			}
+		}, "serve-shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdown);
+		try {
+			writeToken(file, token);
+			System.out.println("Listening on " + server.getAddress()
+					+ ", token written to " + file);
+			server.serve();
+		} finally {
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdown);
+			} catch (IllegalStateException e) {
+				// Already shutting down, the hook closes the server
+			}
+			server.close();
+			Files.deleteIfExists(file);
+		}
+		return 0;
+	}
+
+	private static void writeToken(final Path file, final String token)
+			throws IOException {
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		// Replaced, an existing file may be readable by others
+		Files.deleteIfExists(file);
+		try {
+			Files.createFile(file, PosixFilePermissions
+					.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} catch (UnsupportedOperationException e) {
+			// Not a POSIX file system, restrict it as far as possible
+			Files.createFile(file);
+			File created = file.toFile();
+			created.setReadable(false, false);
+			created.setReadable(true, true);
+			created.setWritable(false, false);
+			created.setWritable(true, true);
+		}
+		Files.writeString(file, token + "\n", StandardCharsets.UTF_8);
+	}
+
+	private int runJob(final List<String> args) {
+		Supplier<Object> command = JOB_COMMANDS.get(args.get(0));
+		if (Objects.isNull(command)) {
+			throw new IllegalArgumentException(
+					"Unknown job " + args.get(0) + ", expected one of "
+							+ new TreeSet<>(JOB_COMMANDS.keySet()));
+		}
+		// Only the plugins stay loaded, every job creates its command and the
+		// transformers, serializers and deserializers it uses
+		return new CommandLine(command.get()).execute(
+				args.subList(1, args.size()).toArray(new String[0]));
+	}
+}
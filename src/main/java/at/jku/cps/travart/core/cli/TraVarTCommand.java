@@ -26,7 +26,8 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.ScopeType;
 
 @Command(name = "travart", subcommands = {TransformCommand.class,
-		PluginCommand.class, BenchmarkCommand.class,
+		PluginCommand.class, BenchmarkCommand.class, ServeCommand.class,
+		MergeResultsCommand.class, GenerateCommand.class,
 		HelpCommand.class}, mixinStandardHelpOptions = true, version = "0.0.1", description = "TraVarT main command to transform and validate variability artifacts.")
 public class TraVarTCommand {
 
@@ -0,0 +1,29 @@
+package at.jku.cps.travart.core.cli;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import at.jku.cps.travart.core.common.IDeserializer;
+import at.jku.cps.travart.core.common.IModelTransformer;
+import at.jku.cps.travart.core.common.IPlugin;
+import at.jku.cps.travart.core.common.ISerializer;
+
+/**
+ * Holds the (de-)serializer and the scheduled transformers used to transform a
+ * single model. Plugins are not required to be thread-safe, so every worker
+ * thread of a batch transformation owns its own context; a context must never
+ * be shared between threads.
+ */
+@SuppressWarnings("rawtypes")
+final class TransformationContext {
+
+	IDeserializer deserializer;
+	ISerializer serializer;
+	final Deque<IModelTransformer> transformers = new ArrayDeque<>();
+	// Plugins providing the above, in order of use
+	final List<IPlugin> plugins = new ArrayList<>();
+	boolean startUVL = false;
+
+}
@@ -0,0 +1,36 @@
+package at.jku.cps.travart.core.exception;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Thrown if a supervised transformation stage exceeds its deadline. Besides
+ * the timeout itself, the exception reports whether the thread running the
+ * stage ignored the interruption and is still running, i.e., whether it is
+ * hung.
+ */
+@SuppressWarnings("serial")
+public class StageTimeoutException extends TimeoutException {
+
+	private final boolean hung;
+
+	/**
+	 * Creates a new exception with the given message.
+	 *
+	 * @param message a string.
+	 * @param hung    whether the stage is still running despite interruption.
+	 */
+	public StageTimeoutException(final String message, final boolean hung) {
+		super(message);
+		this.hung = hung;
+	}
+
+	/**
+	 * Returns whether the timed out stage is still running despite being
+	 * interrupted.
+	 *
+	 * @return true if the thread running the stage is hung.
+	 */
+	public boolean isHung() {
+		return hung;
+	}
+}
@@ -0,0 +1,220 @@
+package at.jku.cps.travart.core.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import at.jku.cps.travart.core.factory.impl.CoreModelFactory;
+import at.jku.cps.travart.core.helpers.TraVarTUtils;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.Group.GroupType;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * Generates synthetic feature models of controlled size and shape, e.g., to
+ * benchmark transformations over models of 100 to 100k features. The features
+ * form a tree of exactly the given depth, whose levels grow geometrically.
+ * Every feature with children gets one group, which is an or, alternative or
+ * group cardinality group with the given shares, and an optional or mandatory
+ * group otherwise. Group cardinalities range from 1 to a random upper bound of
+ * at least 2, single children get an or group instead. Requires and excludes
+ * constraints between random features are added with the given density.
+ *
+ * Models are fully determined by the parameters and the seed. Features are
+ * named {@code F0} (the root) to {@code F<n-1>}, in breadth-first order.
+ * Instances are immutable and thread-safe.
+ */
+public class FeatureModelGenerator {
+
+	private static final CoreModelFactory factory = CoreModelFactory
+			.getInstance();
+
+	private final int features;
+	private final int depth;
+	private final double orShare;
+	private final double alternativeShare;
+	private final double cardinalityShare;
+	private final double constraintDensity;
+
+	/**
+	 * Creates a generator of models with the given shape.
+	 *
+	 * @param features          the number of features, including the root
+	 * @param depth             the number of levels of the feature tree,
+	 *                          bounded by the number of features
+	 * @param orShare           share of or groups
+	 * @param alternativeShare  share of alternative groups
+	 * @param cardinalityShare  share of group cardinality groups
+	 * @param constraintDensity number of cross-tree constraints per feature
+	 * @throws IllegalArgumentException if a parameter is out of range
+	 */
+	public FeatureModelGenerator(final int features, final int depth,
+			final double orShare, final double alternativeShare,
+			final double cardinalityShare, final double constraintDensity) {
+		if (features < 1 || depth < 1) {
+			throw new IllegalArgumentException(
+					"Number of features and depth must be at least 1!");
+		}
+		if (orShare < 0 || alternativeShare < 0 || cardinalityShare < 0
+				|| orShare + alternativeShare + cardinalityShare > 1) {
+			throw new IllegalArgumentException(
+					"Group type shares must not be negative and must not exceed 1 in total!");
+		}
+		if (constraintDensity < 0) {
+			throw new IllegalArgumentException(
+					"Constraint density must not be negative!");
+		}
+		this.features = features;
+		this.depth = Math.min(depth, features);
+		this.orShare = orShare;
+		this.alternativeShare = alternativeShare;
+		this.cardinalityShare = cardinalityShare;
+		this.constraintDensity = constraintDensity;
+	}
+
+	/**
+	 * Generates a model.
+	 *
+	 * @param seed the seed, equal seeds generate equal models
+	 * @return the generated model
+	 */
+	public FeatureModel generate(final long seed) {
+		Random random = new Random(seed);
+		FeatureModel fm = factory.create();
+		List<Feature> tree = new ArrayList<>(features);
+		Feature root = factory.createFeature(name(0));
+		TraVarTUtils.setRoot(fm, root);
+		TraVarTUtils.addFeature(fm, root);
+		tree.add(root);
+
+		// Every feature of a level gets a random parent on the level above
+		List<List<Feature>> children = new ArrayList<>(features);
+		children.add(new ArrayList<>());
+		int levelStart = 0;
+		int levelEnd = 1;
+		for (int levelSize : levelSizes()) {
+			for (int i = 0; i < levelSize; i++) {
+				int parent = levelStart
+						+ random.nextInt(levelEnd - levelStart);
+				Feature feature = factory.createFeature(name(tree.size()));
+				children.get(parent).add(feature);
+				children.add(new ArrayList<>());
+				tree.add(feature);
+			}
+			levelStart = levelEnd;
+			levelEnd = tree.size();
+		}
+
+		// Parents are attached before their children
+		for (int i = 0; i < tree.size(); i++) {
+			List<Feature> groupFeatures = children.get(i);
+			if (groupFeatures.isEmpty()) {
+				continue;
+			}
+			GroupType groupType = nextGroupType(random);
+			if (groupType == GroupType.GROUP_CARDINALITY
+					&& groupFeatures.size() < 2) {
+				// UVL parsers reject cardinalities with equal bounds
+				groupType = GroupType.OR;
+			}
+			for (Feature feature : groupFeatures) {
+				TraVarTUtils.setGroup(fm, feature, tree.get(i), groupType);
+			}
+			if (groupType == GroupType.GROUP_CARDINALITY) {
+				Group group = groupFeatures.get(0).getParentGroup();
+				group.setLowerBound("1");
+				group.setUpperBound(Integer.toString(
+						2 + random.nextInt(groupFeatures.size() - 1)));
+			}
+		}
+
+		int constraints = (int) Math.round(features * constraintDensity);
+		if (features > 2) {
+			for (int i = 0; i < constraints; i++) {
+				TraVarTUtils.addOwnConstraint(fm, nextConstraint(random));
+			}
+		}
+		return fm;
+	}
+
+	/**
+	 * The name of the feature with the given breadth-first index.
+	 *
+	 * @param index the index of the feature, 0 for the root
+	 * @return the name of the feature
+	 */
+	public static String name(final int index) {
+		return "F" + index;
+	}
+
+	// Sizes of the levels below the root, growing with the same factor
+	private int[] levelSizes() {
+		int[] sizes = new int[depth - 1];
+		if (sizes.length == 0) {
+			return sizes;
+		}
+		// Factor at which the levels sum up to the number of features
+		double low = 1;
+		double high = features;
+		for (int i = 0; i < 64; i++) {
+			double factor = (low + high) / 2;
+			if (countFeatures(factor) < features) {
+				low = factor;
+			} else {
+				high = factor;
+			}
+		}
+		int total = 0;
+		for (int level = 0; level < sizes.length - 1; level++) {
+			sizes[level] = Math.max(1,
+					(int) Math.round(Math.pow(low, level + 1)));
+			total += sizes[level];
+		}
+		// The last level takes the remaining features
+		sizes[sizes.length - 1] = features - 1 - total;
+		for (int level = sizes.length - 2; sizes[sizes.length - 1] < 1; level--) {
+			int moved = Math.min(sizes[level] - 1,
+					1 - sizes[sizes.length - 1]);
+			sizes[level] -= moved;
+			sizes[sizes.length - 1] += moved;
+		}
+		return sizes;
+	}
+
+	private double countFeatures(final double factor) {
+		double count = 0;
+		for (int level = 0; level < depth; level++) {
+			count += Math.pow(factor, level);
+		}
+		return count;
+	}
+
+	private GroupType nextGroupType(final Random random) {
+		double share = random.nextDouble();
+		if (share < orShare) {
+			return GroupType.OR;
+		} else if (share < orShare + alternativeShare) {
+			return GroupType.ALTERNATIVE;
+		} else if (share < orShare + alternativeShare + cardinalityShare) {
+			return GroupType.GROUP_CARDINALITY;
+		}
+		return random.nextBoolean() ? GroupType.OPTIONAL : GroupType.MANDATORY;
+	}
+
+	// Requires or excludes constraint between two distinct non-root features
+	private Constraint nextConstraint(final Random random) {
+		int left = 1 + random.nextInt(features - 1);
+		int right = 1 + random.nextInt(features - 2);
+		if (right >= left) {
+			right++;
+		}
+		Constraint target = factory.createLiteralConstraint(name(right));
+		if (random.nextBoolean()) {
+			target = factory.createNotConstraint(target);
+		}
+		return factory.createImplicationConstraint(
+				factory.createLiteralConstraint(name(left)), target);
+	}
+}
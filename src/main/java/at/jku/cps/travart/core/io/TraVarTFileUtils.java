@@ -16,15 +16,29 @@
 package at.jku.cps.travart.core.io;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 public final class TraVarTFileUtils {
 
+	private static final Logger LOGGER = LogManager.getLogger(TraVarTFileUtils.class);
+
 	private TraVarTFileUtils() {
 
 	}
@@ -43,4 +57,72 @@ public final class TraVarTFileUtils {
 			throw new IOException(e);
 		}
 	}
+
+	/**
+	 * Lazily walks the given directory and all of its subdirectories, returning
+	 * files ending with any of the given extensions as soon as they are found.
+	 * Only the entries of the directory currently visited are held in memory;
+	 * within a directory, files are returned sorted by name before the
+	 * subdirectories are visited. Unreadable directories are skipped.
+	 *
+	 * @param path       the directory to walk
+	 * @param extensions the file extensions to match
+	 * @return an iterator over the matching files
+	 */
+	public static Iterator<Path> walkFiles(final Path path, final Collection<String> extensions) {
+		return new FileWalker(path, List.copyOf(extensions));
+	}
+
+	private static final class FileWalker implements Iterator<Path> {
+
+		private final List<String> extensions;
+		private final Deque<Path> directories = new ArrayDeque<>();
+		private final Deque<Path> files = new ArrayDeque<>();
+
+		private FileWalker(final Path root, final List<String> extensions) {
+			this.extensions = extensions;
+			directories.push(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (files.isEmpty() && !directories.isEmpty()) {
+				visit(directories.pop());
+			}
+			return !files.isEmpty();
+		}
+
+		@Override
+		public Path next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return files.poll();
+		}
+
+		private void visit(final Path directory) {
+			List<Path> entries = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+				stream.forEach(entries::add);
+			} catch (IOException e) {
+				LOGGER.warn(String.format("Skipping unreadable directory %s: %s", directory, e.getMessage()));
+				return;
+			}
+			entries.sort(null);
+			List<Path> subdirectories = new ArrayList<>();
+			for (Path entry : entries) {
+				// Like Files.walk, symbolic links to directories are not followed
+				if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+					subdirectories.add(entry);
+				} else if (Files.isRegularFile(entry) && extensions.stream()
+						.anyMatch(e -> entry.getFileName().toString().endsWith(e))) {
+					files.add(entry);
+				}
+			}
+			// Push in reverse, such that subdirectories are visited in order
+			for (int i = subdirectories.size() - 1; i >= 0; i--) {
+				directories.push(subdirectories.get(i));
+			}
+		}
+	}
 }
@@ -19,6 +19,7 @@ import de.ovgu.featureide.fm.core.JavaLogger;
 import de.ovgu.featureide.fm.core.Logger;
 import de.ovgu.featureide.fm.core.base.impl.ConfigurationFactoryManager;
 import de.ovgu.featureide.fm.core.base.impl.CoreFactoryWorkspaceLoader;
+import de.ovgu.featureide.fm.core.base.impl.DefaultConfigurationFactory;
 import de.ovgu.featureide.fm.core.base.impl.DefaultFeatureModelFactory;
 import de.ovgu.featureide.fm.core.base.impl.FMFactoryManager;
 import de.ovgu.featureide.fm.core.base.impl.MultiFeatureModelFactory;
@@ -54,6 +55,9 @@ public final class DefaultLibrary implements ILibrary {
 		FMFactoryManager.getInstance().addExtension(MultiFeatureModelFactory.getInstance());
 		FMFactoryManager.getInstance().setWorkspaceLoader(new CoreFactoryWorkspaceLoader());
 
+		ConfigurationFactoryManager.getInstance().addExtension(DefaultConfigurationFactory.getInstance());
+		ConfigurationFactoryManager.getInstance().setWorkspaceLoader(new CoreFactoryWorkspaceLoader());
+
 		CLIFunctionManager.getInstance().addExtension(new ConfigurationGenerator());
 	}
 
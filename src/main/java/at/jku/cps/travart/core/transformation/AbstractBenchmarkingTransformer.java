@@ -2,16 +2,22 @@ package at.jku.cps.travart.core.transformation;
 
 import java.time.Instant;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.slf4j.event.Level;
 
 import com.google.common.eventbus.EventBus;
 
 import at.jku.cps.travart.core.FeatureModelStatistics;
+import at.jku.cps.travart.core.benchmarking.BenchmarkEventBus;
 import at.jku.cps.travart.core.benchmarking.IBenchmarkingEvent;
 import at.jku.cps.travart.core.benchmarking.IEmitting;
 import at.jku.cps.travart.core.benchmarking.MuteEvent;
+import at.jku.cps.travart.core.benchmarking.Phase;
+import at.jku.cps.travart.core.benchmarking.PhaseBeginEvent;
+import at.jku.cps.travart.core.benchmarking.PhaseEndEvent;
 import at.jku.cps.travart.core.benchmarking.TransformationBeginEvent;
 import at.jku.cps.travart.core.benchmarking.TransformationEndEvent;
 import at.jku.cps.travart.core.benchmarking.UnmuteEvent;
@@ -25,6 +31,10 @@ public abstract class AbstractBenchmarkingTransformer<T>
 			IEmitting,
 			IModelTransformer<T> {
 
+	private static final Logger LOGGER = LogManager
+			.getLogger(AbstractBenchmarkingTransformer.class);
+	private static final FeatureModelStatistics STATISTICS = new FeatureModelStatistics();
+
 	protected EventBus bus;
 	protected Level verbosity;
 
@@ -33,24 +43,32 @@ public abstract class AbstractBenchmarkingTransformer<T>
 			STRATEGY strategy, boolean intermediate)
 			throws NotSupportedVariabilityTypeException {
 		FeatureModel transformationResult;
-		post(new TransformationBeginEvent(Instant.now(), modelName,
-				model.hashCode(),
-				getTargetStatistics().getVariabilityElementsCount(model)),
+		post(TransformationBeginEvent.class,
+				() -> new TransformationBeginEvent(Instant.now(), modelName,
+						model.hashCode(),
+						collectStatistics(modelName,
+								() -> getTargetStatistics()
+										.getVariabilityElementsCount(model))),
 				Level.INFO);
 		try {
 			transformationResult = transformInner(model, modelName, strategy);
 		} catch (Exception e) {
-			post(new TransformationEndEvent(Instant.now(), modelName,
-					model.hashCode(), 0, false, intermediate), Level.INFO);
+			post(TransformationEndEvent.class,
+					() -> new TransformationEndEvent(Instant.now(), modelName,
+							model.hashCode(), 0, false, intermediate),
+					Level.INFO);
 			throw e;
 		}
-		FeatureModelStatistics statProvider = new FeatureModelStatistics();
-		post(new TransformationEndEvent(Instant.now(), modelName,
-				model.hashCode(),
-				statProvider.getVariabilityElementsCount(transformationResult),
-				true, intermediate), Level.INFO);
-		statProvider.logModelStatistics(LogManager.getLogger(),
-				transformationResult);
+		final FeatureModel result = transformationResult;
+		post(TransformationEndEvent.class,
+				() -> new TransformationEndEvent(Instant.now(), modelName,
+						model.hashCode(),
+						collectStatistics(modelName,
+								() -> STATISTICS
+										.getVariabilityElementsCount(result)),
+						true, intermediate),
+				Level.INFO);
+		logModelStatistics(modelName, STATISTICS, result);
 		return transformationResult;
 	}
 
@@ -59,23 +77,32 @@ public abstract class AbstractBenchmarkingTransformer<T>
 			STRATEGY strategy, boolean intermediate)
 			throws NotSupportedVariabilityTypeException {
 		T transformationResult;
-		FeatureModelStatistics statProvider = new FeatureModelStatistics();
-		post(new TransformationBeginEvent(Instant.now(), modelName,
-				model.hashCode(),
-				statProvider.getVariabilityElementsCount(model)), Level.INFO);
+		post(TransformationBeginEvent.class,
+				() -> new TransformationBeginEvent(Instant.now(), modelName,
+						model.hashCode(),
+						collectStatistics(modelName,
+								() -> STATISTICS
+										.getVariabilityElementsCount(model))),
+				Level.INFO);
 		try {
 			transformationResult = transformInner(model, modelName, strategy);
 		} catch (Exception e) {
-			post(new TransformationEndEvent(Instant.now(), modelName,
-					model.hashCode(), 0, false, intermediate), Level.INFO);
+			post(TransformationEndEvent.class,
+					() -> new TransformationEndEvent(Instant.now(), modelName,
+							model.hashCode(), 0, false, intermediate),
+					Level.INFO);
 			throw e;
 		}
-		post(new TransformationEndEvent(Instant.now(), modelName,
-				model.hashCode(), getTargetStatistics()
-						.getVariabilityElementsCount(transformationResult),
-				true, intermediate), Level.INFO);
-		getTargetStatistics().logModelStatistics(LogManager.getLogger(),
-				transformationResult);
+		final T result = transformationResult;
+		post(TransformationEndEvent.class,
+				() -> new TransformationEndEvent(Instant.now(), modelName,
+						model.hashCode(),
+						collectStatistics(modelName,
+								() -> getTargetStatistics()
+										.getVariabilityElementsCount(result)),
+						true, intermediate),
+				Level.INFO);
+		logModelStatistics(modelName, getTargetStatistics(), result);
 		return transformationResult;
 	}
 
@@ -119,10 +146,64 @@ public abstract class AbstractBenchmarkingTransformer<T>
 		}
 	}
 
-	private void post(IBenchmarkingEvent<?> event, Level visibility) {
-		if (Objects.nonNull(bus)
-				&& (this.verbosity.compareTo(visibility) >= 0)) {
-			bus.post(event);
+	/**
+	 * Posts the event created by the given supplier if the bus is set, the
+	 * verbosity of this transformer includes the given visibility and, for a
+	 * {@link BenchmarkEventBus}, a benchmark listens to events of the given
+	 * type. Otherwise, the event and everything it is computed from is not
+	 * created at all, so transformers which are not benchmarked do not pay for
+	 * their events.
+	 *
+	 * @param <E>        the type of the event
+	 * @param type       the type of the event
+	 * @param event      supplier of the event, called at most once
+	 * @param visibility the least verbosity at which the event is posted
+	 */
+	protected final <E extends IBenchmarkingEvent<?>> void post(Class<E> type,
+			Supplier<? extends E> event, Level visibility) {
+		if (isPosting(type, visibility)) {
+			bus.post(event.get());
+		}
+	}
+
+	/**
+	 * Checks whether events of the given type and visibility are posted, see
+	 * {@link #post(Class, Supplier, Level)}.
+	 *
+	 * @param type       the type of the event
+	 * @param visibility the least verbosity at which the event is posted
+	 * @return true if the events are posted
+	 */
+	protected final boolean isPosting(Class<?> type, Level visibility) {
+		return Objects.nonNull(bus) && Objects.nonNull(verbosity)
+				&& verbosity.compareTo(visibility) >= 0
+				&& BenchmarkEventBus.isListening(bus, type);
+	}
+
+	// Statistics are timed with the monotonic clock, see PhaseTimeBenchmark
+	private <R> R collectStatistics(String modelName, Supplier<R> statistics) {
+		post(PhaseBeginEvent.class,
+				() -> new PhaseBeginEvent(Instant.now(), modelName,
+						this.hashCode(), Phase.STATISTICS, 0,
+						System.nanoTime()),
+				Level.INFO);
+		R result = statistics.get();
+		post(PhaseEndEvent.class, () -> {
+			long end = System.nanoTime();
+			return new PhaseEndEvent(Instant.now(), modelName, this.hashCode(),
+					Phase.STATISTICS, 0, end);
+		}, Level.INFO);
+		return result;
+	}
+
+	// Every statistic traverses the model, skip them unless they are logged
+	private <M> void logModelStatistics(String modelName,
+			IStatistics<M> statistics, M model) {
+		if (LOGGER.isInfoEnabled()) {
+			collectStatistics(modelName, () -> {
+				statistics.logModelStatistics(LOGGER, model);
+				return null;
+			});
 		}
 	}
 